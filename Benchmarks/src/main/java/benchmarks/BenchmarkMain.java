@@ -0,0 +1,28 @@
+package benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Entry point of benchmarks.jar. Accepts the usual JMH command line, but writes the results as JSON to
+ * jmh-result.json unless -rf / -rff say otherwise, so every run leaves a file for regression tracking.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) builder.resultFormat(ResultFormatType.JSON);
+        if (!commandLine.getResult().hasValue()) builder.result("jmh-result.json");
+
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
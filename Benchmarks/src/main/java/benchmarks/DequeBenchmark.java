@@ -0,0 +1,123 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import queues.Deque;
+import queues.IntDeque;
+import queues.ResizingArrayDeque;
+
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * The linked Deque against ResizingArrayDeque, and IntDeque for the queue workload, on whole workloads of the given
+ * number of items:
+ * queue   - addLast every item, then removeFirst them all;
+ * stack   - addFirst every item, then removeFirst them all;
+ * iterate - one pass of the iterator over a deque filled up front.
+ * The items are boxed once in setUp, so the generic scores measure the deques rather than Integer allocation; the
+ * IntDeque score has no boxing to leave out.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DequeBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int items;
+
+    private Integer[] values;
+    private Deque<Integer> filledLinked;
+    private ResizingArrayDeque<Integer> filledArray;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        values = new Integer[items];
+        for (int i = 0; i < items; i++) values[i] = i;
+
+        filledLinked = new Deque<>();
+        filledArray = new ResizingArrayDeque<>();
+        for (Integer value : values) {
+            filledLinked.addLast(value);
+            filledArray.addLast(value);
+        }
+    }
+
+    @Benchmark
+    public long queueLinked() {
+        Deque<Integer> deque = new Deque<>();
+        for (Integer value : values) deque.addLast(value);
+
+        long sum = 0;
+        while (!deque.isEmpty()) sum += deque.removeFirst();
+        return sum;
+    }
+
+    @Benchmark
+    public long queueArray() {
+        ResizingArrayDeque<Integer> deque = new ResizingArrayDeque<>();
+        for (Integer value : values) deque.addLast(value);
+
+        long sum = 0;
+        while (!deque.isEmpty()) sum += deque.removeFirst();
+        return sum;
+    }
+
+    @Benchmark
+    public long queueInt() {
+        IntDeque deque = new IntDeque();
+        for (int i = 0; i < items; i++) deque.addLast(i);
+
+        long sum = 0;
+        while (!deque.isEmpty()) sum += deque.removeFirst();
+        return sum;
+    }
+
+    @Benchmark
+    public long stackLinked() {
+        Deque<Integer> deque = new Deque<>();
+        for (Integer value : values) deque.addFirst(value);
+
+        long sum = 0;
+        while (!deque.isEmpty()) sum += deque.removeFirst();
+        return sum;
+    }
+
+    @Benchmark
+    public long stackArray() {
+        ResizingArrayDeque<Integer> deque = new ResizingArrayDeque<>();
+        for (Integer value : values) deque.addFirst(value);
+
+        long sum = 0;
+        while (!deque.isEmpty()) sum += deque.removeFirst();
+        return sum;
+    }
+
+    @Benchmark
+    public long iterateLinked() {
+        long sum = 0;
+        for (int value : filledLinked) sum += value;
+        return sum;
+    }
+
+    @Benchmark
+    public long iterateArray() {
+        long sum = 0;
+        for (int value : filledArray) sum += value;
+        return sum;
+    }
+}
@@ -0,0 +1,108 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import percolation.CubicLattice;
+import percolation.HoneycombLattice;
+import percolation.Lattice;
+import percolation.LatticePercolation;
+import percolation.Percolation;
+import percolation.RootFlagPercolation;
+import percolation.SquareLattice;
+import percolation.TriangularLattice;
+
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * The cost of the Lattice indirection: a whole trial (reset, then open in random order until the system percolates)
+ * on the n-by-n square grid, through LatticePercolation on a SquareLattice and through the hand-written grids of
+ * Percolation and RootFlagPercolation. With mixedLattices the fork first runs a trial on every other lattice, so
+ * the neighbours() call site has seen several classes by the time the JIT compiles it, as in a run that compares
+ * lattices.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LatticeBenchmark {
+
+    @Param({"100", "1000", "2000"})
+    public int gridSide;
+
+    @Param({"false", "true"})
+    public boolean mixedLattices;
+
+    private LatticePercolation lattice;
+    private Percolation twins;
+    private RootFlagPercolation flags;
+    private int[] sites; // opening order, 0-based
+    private int[] siteIds; // the same order as 1-based row-major ids
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        if (mixedLattices) {
+            for (Lattice other : new Lattice[] { new TriangularLattice(100), new HoneycombLattice(100), new CubicLattice(20) }) {
+                LatticePercolation percolation = new LatticePercolation(other);
+                for (int trial = 0; trial < 20; trial++) {
+                    percolation.reset();
+                    percolation.openUntilPercolates(shuffled(other.sites(), random), 0, other.sites());
+                }
+            }
+        }
+
+        lattice = new LatticePercolation(new SquareLattice(gridSide));
+        twins = new Percolation(gridSide);
+        flags = new RootFlagPercolation(gridSide);
+
+        sites = shuffled(gridSide * gridSide, random);
+        siteIds = new int[sites.length];
+        for (int i = 0; i < sites.length; i++) siteIds[i] = sites[i] + 1;
+    }
+
+    // 0 to size - 1 in random order
+    private static int[] shuffled(int size, SplittableRandom random) {
+        int[] a = new int[size];
+        for (int i = 0; i < size; i++) a[i] = i;
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = a[i];
+            a[i] = a[j];
+            a[j] = swap;
+        }
+        return a;
+    }
+
+    @Benchmark
+    public int squareLattice() {
+        lattice.reset();
+        return lattice.openUntilPercolates(sites, 0, sites.length);
+    }
+
+    @Benchmark
+    public int percolation() {
+        twins.reset();
+        return twins.openUntilPercolates(siteIds, 0, siteIds.length);
+    }
+
+    @Benchmark
+    public int rootFlagPercolation() {
+        flags.reset();
+        return flags.openUntilPercolates(siteIds, 0, siteIds.length);
+    }
+}
@@ -0,0 +1,156 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import percolation.Percolation;
+import percolation.PercolationModel;
+import percolation.RootFlagPercolation;
+
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Single-engine benchmarks: a whole trial (reset, then open until the system percolates), through open(row, col) or
+ * through the batch openUntilPercolates, and the isFull / percolates queries on a grid opened up to its threshold,
+ * together with a whole-grid snapshot through fullMask() and through the equivalent loop of isFull calls.
+ * Sites are opened either in random order or row by row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PercolationBenchmark {
+
+    private static final int QUERIES = 1 << 12; // number of precomputed query sites, a power of two
+
+    @Param({"100", "500", "1000", "2000", "4000"})
+    public int gridSide;
+
+    @Param({"random", "rowMajor"})
+    public String order;
+
+    @Param({"twins", "flags"})
+    public String engine;
+
+    private PercolationModel percolation;
+    private int[] rows, cols; // opening order, 1-based
+    private int[] siteIds; // the same order as row-major site ids
+    private int[] queryRows, queryCols;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        percolation = "flags".equals(engine) ? new RootFlagPercolation(gridSide) : new Percolation(gridSide);
+
+        int totalSites = gridSide * gridSide;
+        int[] sites = new int[totalSites];
+        for (int i = 0; i < totalSites; i++) sites[i] = i;
+
+        SplittableRandom random = new SplittableRandom(42);
+        if ("random".equals(order)) {
+            for (int i = totalSites - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = sites[i];
+                sites[i] = sites[j];
+                sites[j] = swap;
+            }
+        }
+
+        rows = new int[totalSites];
+        cols = new int[totalSites];
+        siteIds = new int[totalSites];
+        for (int i = 0; i < totalSites; i++) {
+            siteIds[i] = sites[i] + 1;
+            rows[i] = sites[i] / gridSide + 1;
+            cols[i] = sites[i] % gridSide + 1;
+        }
+
+        queryRows = new int[QUERIES];
+        queryCols = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queryRows[i] = random.nextInt(gridSide) + 1;
+            queryCols[i] = random.nextInt(gridSide) + 1;
+        }
+    }
+
+    // open every site of the order until the system percolates and return the number of open sites
+    private int openUntilPercolates() {
+        percolation.reset();
+
+        int i = 0;
+        do {
+            percolation.open(rows[i], cols[i]);
+            i++;
+        } while (!percolation.percolates() && i < rows.length);
+
+        return percolation.numberOfOpenSites();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int trial() {
+        return openUntilPercolates();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int trialBatch() {
+        percolation.reset();
+        percolation.openUntilPercolates(siteIds, 0, siteIds.length);
+        return percolation.numberOfOpenSites();
+    }
+
+    // the query benchmarks run against the grid left by the last trial, opened up to its threshold
+    @State(Scope.Thread)
+    public static class Percolated {
+        @Setup(Level.Trial)
+        public void setUp(PercolationBenchmark benchmark) {
+            benchmark.openUntilPercolates();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean isFull(Percolated percolated) {
+        int i = query++ & (QUERIES - 1);
+        return percolation.isFull(queryRows[i], queryCols[i]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean percolates(Percolated percolated) {
+        return percolation.percolates();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long[] fullMask(Percolated percolated) {
+        return percolation.fullMask();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long[] fullMaskByQueries(Percolated percolated) {
+        long[] mask = new long[(gridSide * gridSide + 63) >>> 6];
+        for (int row = 1, bit = 0; row <= gridSide; row++) {
+            for (int col = 1; col <= gridSide; col++, bit++) {
+                if (percolation.isFull(row, col)) mask[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return mask;
+    }
+}
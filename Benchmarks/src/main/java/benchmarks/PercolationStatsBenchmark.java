@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import percolation.PercolationStats;
+import percolation.RootFlagPercolation;
+
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Whole PercolationStats runs: the original sequential loop against the seeded fork-join runner at several thread
+ * counts (0 stands for every available processor). Scores are per run of the given number of trials.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PercolationStatsBenchmark {
+
+    @Param({"100", "500", "1000"})
+    public int gridSide;
+
+    @Param({"256"})
+    public int trials;
+
+    @Benchmark
+    public double sequential() {
+        return new PercolationStats(gridSide, trials, RootFlagPercolation::new).mean();
+    }
+
+    // thread counts only apply to the parallel runner
+    @State(Scope.Benchmark)
+    public static class Workers {
+        @Param({"1", "4", "0"})
+        public int threads;
+    }
+
+    @Benchmark
+    public double parallel(Workers workers) {
+        int threads = (workers.threads == 0) ? Runtime.getRuntime().availableProcessors() : workers.threads;
+        return new PercolationStats(gridSide, trials, RootFlagPercolation::new, 42, threads).mean();
+    }
+}
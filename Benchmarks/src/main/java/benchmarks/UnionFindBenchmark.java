@@ -0,0 +1,139 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import percolation.GridUnionFind;
+
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * GridUnionFind against algs4 WeightedQuickUnionUF on 10^7-operation workloads:
+ * random - unions and connectivity queries between uniformly random elements, half of each;
+ * grid   - sites of a square grid opened in random order, each union-ed with its already open right and lower
+ *          neighbours, the access pattern of Percolation.open.
+ * Each invocation starts from fresh sets; scores are per whole workload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UnionFindBenchmark {
+
+    private static final int OPERATIONS = 10_000_000;
+    private static final int ELEMENTS = 1_000_000;
+    private static final int GRID_SIDE = 2_000; // 4 * 10^6 sites, about 10^7 unions and finds when all are open
+
+    @Param({"random", "grid"})
+    public String workload;
+
+    private int[] first, second; // random workload: operands of every operation
+    private int[] sites; // grid workload: opening order
+    private boolean[] open;
+
+    private GridUnionFind gridUnionFind;
+    private WeightedQuickUnionUF weightedQuickUnion;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+
+        if ("random".equals(workload)) {
+            first = new int[OPERATIONS];
+            second = new int[OPERATIONS];
+            for (int i = 0; i < OPERATIONS; i++) {
+                first[i] = random.nextInt(ELEMENTS);
+                second[i] = random.nextInt(ELEMENTS);
+            }
+        }
+        else {
+            int totalSites = GRID_SIDE * GRID_SIDE;
+            sites = new int[totalSites];
+            for (int i = 0; i < totalSites; i++) sites[i] = i;
+            for (int i = totalSites - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = sites[i];
+                sites[i] = sites[j];
+                sites[j] = swap;
+            }
+            open = new boolean[totalSites];
+        }
+
+        gridUnionFind = new GridUnionFind(elements(), GRID_SIDE);
+    }
+
+    private int elements() {
+        return "random".equals(workload) ? ELEMENTS : GRID_SIDE * GRID_SIDE;
+    }
+
+    @Setup(Level.Invocation)
+    public void freshSets() {
+        gridUnionFind.reset();
+        weightedQuickUnion = new WeightedQuickUnionUF(elements());
+        if (open != null) Arrays.fill(open, false);
+    }
+
+    @Benchmark
+    public int gridUnionFind() {
+        GridUnionFind uf = gridUnionFind;
+        int connected = 0;
+
+        if (sites == null) {
+            for (int i = 0; i < OPERATIONS; i++) {
+                if ((i & 1) == 0) uf.union(first[i], second[i]);
+                else if (uf.find(first[i]) == uf.find(second[i])) connected++;
+            }
+            return connected;
+        }
+
+        for (int site : sites) {
+            open[site] = true;
+            int col = site % GRID_SIDE;
+            if (col > 0 && open[site - 1]) uf.unionRight(site - 1);
+            if (col < GRID_SIDE - 1 && open[site + 1]) uf.unionRight(site);
+            if (site >= GRID_SIDE && open[site - GRID_SIDE]) uf.unionDown(site - GRID_SIDE);
+            if (site + GRID_SIDE < open.length && open[site + GRID_SIDE]) uf.unionDown(site);
+        }
+        return uf.find(0);
+    }
+
+    @Benchmark
+    public int weightedQuickUnionUF() {
+        WeightedQuickUnionUF uf = weightedQuickUnion;
+        int connected = 0;
+
+        if (sites == null) {
+            for (int i = 0; i < OPERATIONS; i++) {
+                if ((i & 1) == 0) uf.union(first[i], second[i]);
+                else if (uf.find(first[i]) == uf.find(second[i])) connected++;
+            }
+            return connected;
+        }
+
+        for (int site : sites) {
+            open[site] = true;
+            int col = site % GRID_SIDE;
+            if (col > 0 && open[site - 1]) uf.union(site - 1, site);
+            if (col < GRID_SIDE - 1 && open[site + 1]) uf.union(site, site + 1);
+            if (site >= GRID_SIDE && open[site - GRID_SIDE]) uf.union(site - GRID_SIDE, site);
+            if (site + GRID_SIDE < open.length && open[site + GRID_SIDE]) uf.union(site, site + GRID_SIDE);
+        }
+        return uf.find(0);
+    }
+}
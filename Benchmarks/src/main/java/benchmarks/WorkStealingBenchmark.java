@@ -0,0 +1,118 @@
+package benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import queues.ResizingArrayDeque;
+import queues.WorkStealingDeque;
+
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * WorkStealingDeque against ResizingArrayDeque guarded by synchronized, the way a scheduler shares a plain deque,
+ * with one owner and 0 to 63 thieves (1 to 64 threads). The owner adds TASKS items at the end and takes one back
+ * after every other add; the thieves take from the front until the owner has finished and the deque is empty.
+ * Scores are per whole workload; divide TASKS by the score for throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WorkStealingBenchmark {
+
+    private static final int TASKS = 1_000_000;
+    private static final Integer TASK = 1;
+
+    @Param({"0", "1", "3", "7", "15", "31", "63"})
+    public int thieves;
+
+    // the deque operations the workload needs, with null for nothing to take
+    private interface SharedDeque {
+        void addLast(Integer item);
+        Integer removeLast();
+        Integer removeFirst();
+        boolean isEmpty();
+    }
+
+    private static SharedDeque lockFree() {
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        return new SharedDeque() {
+            public void addLast(Integer item) { deque.addLast(item); }
+            public Integer removeLast() { return deque.removeLast(); }
+            public Integer removeFirst() { return deque.removeFirst(); }
+            public boolean isEmpty() { return deque.isEmpty(); }
+        };
+    }
+
+    private static SharedDeque locked() {
+        ResizingArrayDeque<Integer> deque = new ResizingArrayDeque<>();
+        return new SharedDeque() {
+            public synchronized void addLast(Integer item) { deque.addLast(item); }
+            public synchronized Integer removeLast() { return deque.isEmpty() ? null : deque.removeLast(); }
+            public synchronized Integer removeFirst() { return deque.isEmpty() ? null : deque.removeFirst(); }
+            public synchronized boolean isEmpty() { return deque.isEmpty(); }
+        };
+    }
+
+    // run the workload and return the number of tasks taken, TASKS when nothing is lost
+    private long run(SharedDeque deque) throws InterruptedException {
+        AtomicLong taken = new AtomicLong();
+        AtomicBoolean ownerDone = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            threads[i] = new Thread(() -> {
+                long stolen = 0;
+                try {
+                    start.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                while (true) {
+                    if (deque.removeFirst() != null) stolen++;
+                    else if (ownerDone.get() && deque.isEmpty()) break;
+                }
+                taken.addAndGet(stolen);
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+        long popped = 0;
+        for (int i = 0; i < TASKS; i++) {
+            deque.addLast(TASK);
+            if (i % 2 == 1 && deque.removeLast() != null) popped++;
+        }
+        while (deque.removeLast() != null) popped++;
+        ownerDone.set(true);
+
+        for (Thread thread : threads) thread.join();
+        return taken.addAndGet(popped);
+    }
+
+    @Benchmark
+    public long workStealing() throws InterruptedException {
+        return run(lockFree());
+    }
+
+    @Benchmark
+    public long synchronizedDeque() throws InterruptedException {
+        return run(locked());
+    }
+}
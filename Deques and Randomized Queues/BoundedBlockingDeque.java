@@ -0,0 +1,378 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ *  Deque with a fixed capacity for handing items between threads: put blocks while the deque is full and take
+ *  blocks while it is empty, so neither side has to poll in a loop. The offer and poll variants give up after a
+ *  timeout. drainTo moves up to max items to a collection under a single acquisition of the lock, so a consumer
+ *  pays for the synchronization once per batch rather than once per item.
+ *
+ *  The items are kept in a ring buffer of the given capacity, as in ResizingArrayDeque, guarded by one
+ *  ReentrantLock with a condition for each of "not empty" and "not full".
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class BoundedBlockingDeque<Item> {
+
+    private final Item[] items; // ring buffer; the deque occupies items[head], items[head + 1], ... wrapping around
+    private int head; // index of the front item
+    private int dequeSize; // number of items in the deque
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // Construct an empty deque holding at most capacity items.
+    @SuppressWarnings("unchecked")
+    public BoundedBlockingDeque(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity has to be positive");
+        items = (Item[]) new Object[capacity];
+    }
+
+    // Is the deque empty?
+    public boolean isEmpty() { return size() == 0; }
+
+    // Return the number of items on the deque.
+    public int size() {
+        lock.lock();
+        try {
+            return dequeSize;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // Return the number of items that can be added before the deque is full.
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return items.length - dequeSize;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void verifyItemIsNotNull(Item item) {
+        if (item == null) throw new IllegalArgumentException();
+    }
+
+    // The helpers below run with the lock held and the deque known to be non-full or non-empty.
+
+    private void linkFirst(Item item) {
+        head = (head == 0) ? items.length - 1 : head - 1;
+        items[head] = item;
+        dequeSize++;
+        notEmpty.signal();
+    }
+
+    private void linkLast(Item item) {
+        int last = head + dequeSize;
+        items[(last >= items.length) ? last - items.length : last] = item;
+        dequeSize++;
+        notEmpty.signal();
+    }
+
+    private Item unlinkFirst() {
+        Item item = items[head];
+        items[head] = null; // avoid loitering
+        head = (head == items.length - 1) ? 0 : head + 1;
+        dequeSize--;
+        notFull.signal();
+        return item;
+    }
+
+    private Item unlinkLast() {
+        int last = head + dequeSize - 1;
+        if (last >= items.length) last -= items.length;
+        Item item = items[last];
+        items[last] = null; // avoid loitering
+        dequeSize--;
+        notFull.signal();
+        return item;
+    }
+
+    // Add an item to the front, waiting for room if the deque is full.
+    public void putFirst(Item item) throws InterruptedException {
+        verifyItemIsNotNull(item);
+        lock.lockInterruptibly();
+        try {
+            while (dequeSize == items.length) notFull.await();
+            linkFirst(item);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // Add an item to the end, waiting for room if the deque is full.
+    public void putLast(Item item) throws InterruptedException {
+        verifyItemIsNotNull(item);
+        lock.lockInterruptibly();
+        try {
+            while (dequeSize == items.length) notFull.await();
+            linkLast(item);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // Add an item to the front, waiting up to the timeout for room; false if there was none.
+    public boolean offerFirst(Item item, long timeout, TimeUnit unit) throws InterruptedException {
+        verifyItemIsNotNull(item);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (dequeSize == items.length) {
+                if (nanos <= 0) return false;
+                nanos = notFull.awaitNanos(nanos);
+            }
+            linkFirst(item);
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // Add an item to the end, waiting up to the timeout for room; false if there was none.
+    public boolean offerLast(Item item, long timeout, TimeUnit unit) throws InterruptedException {
+        verifyItemIsNotNull(item);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (dequeSize == items.length) {
+                if (nanos <= 0) return false;
+                nanos = notFull.awaitNanos(nanos);
+            }
+            linkLast(item);
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // Remove and return the item from the front, waiting for one if the deque is empty.
+    public Item takeFirst() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (dequeSize == 0) notEmpty.await();
+            return unlinkFirst();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // Remove and return the item from the end, waiting for one if the deque is empty.
+    public Item takeLast() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (dequeSize == 0) notEmpty.await();
+            return unlinkLast();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // Remove and return the item from the front, waiting up to the timeout for one; null if there was none.
+    public Item pollFirst(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (dequeSize == 0) {
+                if (nanos <= 0) return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return unlinkFirst();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // Remove and return the item from the end, waiting up to the timeout for one; null if there was none.
+    public Item pollLast(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (dequeSize == 0) {
+                if (nanos <= 0) return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return unlinkLast();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // Move up to max items from the front to the collection, in order, under one acquisition of the lock, without
+    // waiting; return the number of items moved.
+    public int drainTo(Collection<? super Item> collection, int max) {
+        if (collection == null) throw new IllegalArgumentException();
+        if (max < 0) throw new IllegalArgumentException("Maximum can not be negative");
+
+        lock.lock();
+        int moved = 0;
+        try {
+            while (moved < max && dequeSize > 0) {
+                collection.add(items[head]); // may throw: keep the deque consistent item by item
+                items[head] = null; // avoid loitering
+                head = (head == items.length - 1) ? 0 : head + 1;
+                dequeSize--;
+                moved++;
+            }
+            return moved;
+        }
+        finally {
+            // every waiting producer may find room now, also when the collection threw part way through
+            if (moved > 0) notFull.signalAll();
+            lock.unlock();
+        }
+    }
+
+    // producers putting at both ends, consumers draining in batches; every item has to arrive exactly once
+    private static void handOff(int producers, int consumers, int itemsPerProducer, int capacity, int batch) throws InterruptedException {
+        BoundedBlockingDeque<Integer> deque = new BoundedBlockingDeque<>(capacity);
+        int total = producers * itemsPerProducer;
+        AtomicIntegerArray received = new AtomicIntegerArray(total);
+        Integer poison = -1;
+
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            int first = p * itemsPerProducer;
+            threads[p] = new Thread(() -> {
+                try {
+                    for (int i = first; i < first + itemsPerProducer; i++) {
+                        if (i % 2 == 0) deque.putLast(i);
+                        else deque.putFirst(i);
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads[producers + c] = new Thread(() -> {
+                List<Integer> drained = new ArrayList<>(batch);
+                try {
+                    while (true) {
+                        drained.add(deque.takeFirst()); // block for the first item, then take what is there
+                        deque.drainTo(drained, batch - 1);
+                        int poisons = 0;
+                        for (int item : drained) {
+                            if (item == poison) poisons++;
+                            else received.incrementAndGet(item);
+                        }
+                        if (poisons > 0) {
+                            for (int i = 1; i < poisons; i++) deque.putLast(poison); // other consumers' poison
+                            return;
+                        }
+                        drained.clear();
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (Thread thread : threads) thread.start();
+
+        for (int p = 0; p < producers; p++) threads[p].join();
+        // one poison item per consumer, after every real item; a consumer whose batch holds several puts the extra
+        // ones back for the others
+        for (int c = 0; c < consumers; c++) deque.putLast(poison);
+        for (int c = 0; c < consumers; c++) threads[producers + c].join();
+
+        for (int i = 0; i < total; i++) {
+            if (received.get(i) != 1) throw new IllegalStateException("Item " + i + " received " + received.get(i) + " times");
+        }
+    }
+
+    // unit testing: sequential behaviour, timeouts, then concurrent hand-off
+    public static void main(String[] args) throws InterruptedException {
+
+        BoundedBlockingDeque<Integer> deque = new BoundedBlockingDeque<>(4);
+        deque.putLast(2);
+        deque.putFirst(1);
+        deque.putLast(3);
+        deque.putLast(4);
+        if (deque.offerLast(5, 50, TimeUnit.MILLISECONDS)) throw new IllegalStateException("Offer to a full deque succeeded");
+        if (deque.takeFirst() != 1 || deque.takeLast() != 4) throw new IllegalStateException("Wrong items taken");
+
+        List<Integer> drained = new ArrayList<>();
+        if (deque.drainTo(drained, 10) != 2 || !drained.equals(List.of(2, 3))) throw new IllegalStateException("Drained " + drained);
+        if (deque.pollFirst(50, TimeUnit.MILLISECONDS) != null) throw new IllegalStateException("Poll of an empty deque returned an item");
+        try {
+            deque.putLast(null);
+            throw new IllegalStateException("null accepted");
+        }
+        catch (IllegalArgumentException e) {
+            StdOut.println("Sequential checks passed");
+        }
+
+        // a collection that refuses the second item: the first one has left the deque, so a blocked producer has to
+        // be woken up all the same
+        BoundedBlockingDeque<Integer> full = new BoundedBlockingDeque<>(2);
+        full.putLast(1);
+        full.putLast(2);
+        Thread producer = new Thread(() -> {
+            try {
+                full.putLast(3);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.setDaemon(true); // do not keep the test alive if the producer is never woken
+        producer.start();
+        boolean producerWaiting = false;
+        while (!producerWaiting) {
+            full.lock.lock();
+            try {
+                producerWaiting = full.lock.hasWaiters(full.notFull);
+            }
+            finally {
+                full.lock.unlock();
+            }
+        }
+        List<Integer> refusing = new ArrayList<>() {
+            public boolean add(Integer item) {
+                if (!isEmpty()) throw new IllegalStateException("Collection full");
+                return super.add(item);
+            }
+        };
+        boolean refused = false;
+        try {
+            full.drainTo(refusing, 2);
+        }
+        catch (IllegalStateException e) {
+            refused = true;
+        }
+        producer.join(1000);
+        if (!refused || producer.isAlive() || full.size() != 2) throw new IllegalStateException("Producer not woken after a failed drainTo");
+        StdOut.println("A failed drainTo still wakes the producers");
+
+        int itemsPerProducer = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+        for (int batch : new int[] { 1, 64 }) {
+            long start = System.nanoTime();
+            handOff(4, 4, itemsPerProducer, 1024, batch);
+            StdOut.println("4 producers, 4 consumers, batches of " + batch + ": every one of " + 4 * itemsPerProducer
+                    + " items arrived once, " + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+    }
+}
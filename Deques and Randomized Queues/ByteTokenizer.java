@@ -0,0 +1,135 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Whitespace-separated tokens read straight from the bytes of an input stream, for read loops where
+ * StdIn.readString (a Scanner matching a regular expression per token) is the bottleneck. Tokens are split on ASCII
+ * whitespace (the ASCII characters Character.isWhitespace accepts) and decoded as UTF-8; whitespace outside ASCII
+ * does not separate tokens, unlike StdIn. skip() passes over a token without decoding it into a String.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class ByteTokenizer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0; // next unread byte in buffer
+    private int limit = 0; // end of the valid bytes in buffer, -1 once the stream is exhausted
+
+    private byte[] token = new byte[64]; // holds a token that straddles two buffer fills
+
+    public ByteTokenizer(InputStream in) {
+        this.in = in;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1c && b <= 0x1f);
+    }
+
+    // refill the buffer; false at the end of the stream
+    private boolean fill() {
+        if (limit < 0) return false;
+        try {
+            int read;
+            do read = in.read(buffer); while (read == 0);
+            position = 0;
+            limit = read;
+            return read > 0;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // is there another token? Skips the whitespace in front of it
+    public boolean hasNext() {
+        while (true) {
+            while (position < limit) {
+                if (!isWhitespace(buffer[position])) return true;
+                position++;
+            }
+            if (!fill()) return false;
+        }
+    }
+
+    // the next token
+    public String next() {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        // common case: the whole token is in the buffer
+        int start = position;
+        while (position < limit && !isWhitespace(buffer[position])) position++;
+        if (position < limit) return new String(buffer, start, position - start, StandardCharsets.UTF_8);
+
+        // the token runs past the end of the buffer: collect it in token across fills
+        int length = 0;
+        while (true) {
+            int run = position - start;
+            if (length + run > token.length) token = Arrays.copyOf(token, Math.max(2 * token.length, length + run));
+            System.arraycopy(buffer, start, token, length, run);
+            length += run;
+
+            if (position < limit || !fill()) break;
+            start = position;
+            while (position < limit && !isWhitespace(buffer[position])) position++;
+        }
+        return new String(token, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // pass over the next token without decoding it
+    public void skip() {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        while (true) {
+            while (position < limit) {
+                if (isWhitespace(buffer[position])) return;
+                position++;
+            }
+            if (!fill()) return;
+        }
+    }
+
+    // unit testing: random text, including multi-byte characters, read back through a stream that hands out chunks of
+    // random size so tokens straddle the buffer boundaries, compared with a split on whitespace
+    public static void main(String[] args) {
+        String[] alphabet = { "a", "b", "Z", "9", "é", "ж", "€", "𝄞" };
+        String[] separators = { " ", "  ", "\n", "\t", "\r\n", " \f " };
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            text.append(separators[StdRandom.uniform(separators.length)]);
+            int length = StdRandom.uniform(1, (i % 1000 == 0) ? 100000 : 12);
+            for (int j = 0; j < length; j++) text.append(alphabet[StdRandom.uniform(alphabet.length)]);
+        }
+        String[] expected = text.toString().trim().split("\\s+");
+
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        InputStream trickle = new ByteArrayInputStream(bytes) {
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1 + StdRandom.uniform(BUFFER_SIZE + 7)));
+            }
+        };
+
+        ByteTokenizer tokens = new ByteTokenizer(trickle);
+        int count = 0;
+        while (tokens.hasNext()) {
+            if (count % 3 == 2) tokens.skip();
+            else if (!tokens.next().equals(expected[count])) throw new IllegalStateException("Token " + count + " differs");
+            count++;
+        }
+        if (count != expected.length) throw new IllegalStateException(count + " tokens, expected " + expected.length);
+
+        StdOut.println(count + " tokens in " + bytes.length + " bytes agree with String.split");
+    }
+}
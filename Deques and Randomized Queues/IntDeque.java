@@ -0,0 +1,195 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ *  Deque of int values: ResizingArrayDeque specialized to a primitive int[] ring buffer, so adding and removing
+ *  neither boxes the value nor allocates a node. The buffer grows and shrinks like ResizingArrayDeque's, down to the
+ *  same optional minimum capacity, so once it has grown to the working size the hot path allocates nothing, also when
+ *  a deque with a minimum capacity of the batch size is drained and refilled. The primitive iterator reads the values
+ *  back without boxing through nextInt().
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.lang.management.ManagementFactory;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class IntDeque implements Iterable<Integer> {
+
+    private static final int MIN_CAPACITY = 8; // a power of two
+
+    private int[] items; // ring buffer; the deque occupies items[head], items[head + 1], ... wrapping around
+    private int head; // index of the front value
+    private final int minCapacity; // the array never shrinks below this, a power of two
+    private int dequeSize; // number of values in the deque
+
+    // Construct an empty deque.
+    public IntDeque() {
+        this(MIN_CAPACITY);
+    }
+
+    // Construct an empty deque whose array never shrinks below minCapacity slots, rounded up to a power of two. A
+    // deque that is drained and refilled in batches of up to minCapacity then keeps its array instead of halving it
+    // on every drain and doubling it again on every refill.
+    public IntDeque(int minCapacity) {
+        this.minCapacity = roundUpCapacity(minCapacity);
+        items = new int[this.minCapacity];
+    }
+
+    // smallest power of two that is at least minCapacity and MIN_CAPACITY
+    private static int roundUpCapacity(int minCapacity) {
+        if (minCapacity < 1 || minCapacity > 1 << 30) throw new IllegalArgumentException("Minimum capacity has to be between 1 and 2^30");
+        return (minCapacity <= MIN_CAPACITY) ? MIN_CAPACITY : Integer.highestOneBit(minCapacity - 1) << 1;
+    }
+
+    // Is the deque empty?
+    public boolean isEmpty() { return (dequeSize == 0); }
+
+    // Return the number of values on the deque.
+    public int size() { return dequeSize; }
+
+    // index of the i-th value from the front
+    private int index(int i) {
+        return (head + i) & (items.length - 1);
+    }
+
+    // move the values to a new array of the given capacity, front value first
+    private void resize(int capacity) {
+        int[] resized = new int[capacity];
+
+        int firstRun = Math.min(dequeSize, items.length - head);
+        System.arraycopy(items, head, resized, 0, firstRun);
+        System.arraycopy(items, 0, resized, firstRun, dequeSize - firstRun);
+
+        items = resized;
+        head = 0;
+    }
+
+    // halve the array once it is a quarter full, down to the minimum capacity
+    private void shrinkIfSparse() {
+        if (items.length > minCapacity && dequeSize <= items.length / 4) resize(items.length / 2);
+    }
+
+    // Add a value to the front.
+    public void addFirst(int value) {
+        if (dequeSize == items.length) resize(2 * items.length);
+
+        head = (head - 1) & (items.length - 1);
+        items[head] = value;
+        dequeSize++;
+    }
+
+    // Add the value to the end.
+    public void addLast(int value) {
+        if (dequeSize == items.length) resize(2 * items.length);
+
+        items[index(dequeSize)] = value;
+        dequeSize++;
+    }
+
+    // remove and return the value from the front
+    public int removeFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+
+        int value = items[head];
+        head = (head + 1) & (items.length - 1);
+        dequeSize--;
+
+        shrinkIfSparse();
+        return value;
+    }
+
+    // remove and return the value from the end
+    public int removeLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+
+        int value = items[index(dequeSize - 1)];
+        dequeSize--;
+
+        shrinkIfSparse();
+        return value;
+    }
+
+    // Return an iterator over values in order from front to end; nextInt() reads them without boxing
+    public PrimitiveIterator.OfInt iterator() {
+        return new ArrayIterator();
+    }
+
+    // Inner class walking the ring buffer from the front
+    private class ArrayIterator implements PrimitiveIterator.OfInt {
+        private int i = 0; // position of the next value, counted from the front
+
+        public boolean hasNext() { return i < dequeSize; }
+        public void remove() { throw new UnsupportedOperationException(); }
+
+        public int nextInt() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return items[index(i++)];
+        }
+    }
+
+    // unit testing: random operations checked against ResizingArrayDeque, then the allocation of a steady-state loop
+    // and of a drain-and-refill loop
+    public static void main(String[] args) {
+
+        int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+        StdOut.println("Check " + operations + " random operations against ResizingArrayDeque");
+
+        IntDeque ints = new IntDeque();
+        ResizingArrayDeque<Integer> boxed = new ResizingArrayDeque<>();
+
+        for (int i = 0; i < operations; i++) {
+            // phases that mostly grow and then mostly shrink, so the array resizes both ways
+            boolean growing = (i / 100000) % 2 == 0;
+            boolean add = growing ? StdRandom.uniform(4) != 0 : StdRandom.uniform(4) == 0;
+            boolean front = StdRandom.uniform(2) == 0;
+
+            if (add || boxed.isEmpty()) {
+                if (front) { ints.addFirst(i); boxed.addFirst(i); }
+                else { ints.addLast(i); boxed.addLast(i); }
+            }
+            else {
+                int fromInts = front ? ints.removeFirst() : ints.removeLast();
+                int fromBoxed = front ? boxed.removeFirst() : boxed.removeLast();
+                if (fromInts != fromBoxed) throw new IllegalStateException("Removed " + fromInts + ", expected " + fromBoxed);
+            }
+            if (ints.size() != boxed.size()) throw new IllegalStateException("Size " + ints.size() + ", expected " + boxed.size());
+        }
+
+        PrimitiveIterator.OfInt values = ints.iterator();
+        for (int expected : boxed) {
+            if (values.nextInt() != expected) throw new IllegalStateException("Iterators disagree");
+        }
+        if (values.hasNext()) throw new IllegalStateException("Iterator ran past the end");
+        StdOut.println("Both deques agree; " + ints.size() + " values left");
+
+        // work-queue loop at a steady size: every value taken from the front goes back at the end
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        IntDeque queue = new IntDeque(100000); // keeps its array through the drains below
+        for (int i = 0; i < 100000; i++) queue.addLast(i);
+        long checksum = 0;
+        for (int i = 0; i < operations; i++) queue.addLast(queue.removeFirst() + 1); // warm-up
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < operations; i++) queue.addLast(queue.removeFirst() + 1);
+        for (PrimitiveIterator.OfInt it = queue.iterator(); it.hasNext(); ) checksum += it.nextInt();
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        StdOut.println("Bytes allocated by " + operations + " steady-state operations and one iteration: " + allocated + " (checksum " + checksum + ")");
+
+        // batch loop: the queue is drained completely and filled up again, which must not reallocate the array
+        for (int round = 0; round < 2; round++) { // the first round is the warm-up
+            before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < operations; i += 2 * 100000) {
+                while (!queue.isEmpty()) checksum += queue.removeFirst();
+                for (int j = 0; j < 100000; j++) queue.addLast(j);
+            }
+            allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        }
+
+        StdOut.println("Bytes allocated by " + operations + " drain-and-refill operations: " + allocated + " (checksum " + checksum + ")");
+    }
+}
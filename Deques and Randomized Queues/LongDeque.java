@@ -0,0 +1,166 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ *  Deque of long values: ResizingArrayDeque specialized to a primitive long[] ring buffer, so adding and removing
+ *  neither boxes the value nor allocates a node. The buffer grows and shrinks like ResizingArrayDeque's, down to the
+ *  same optional minimum capacity, so once it has grown to the working size the hot path allocates nothing, also when
+ *  a deque with a minimum capacity of the batch size is drained and refilled. The primitive iterator reads the values
+ *  back without boxing through nextLong().
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class LongDeque implements Iterable<Long> {
+
+    private static final int MIN_CAPACITY = 8; // a power of two
+
+    private long[] items; // ring buffer; the deque occupies items[head], items[head + 1], ... wrapping around
+    private int head; // index of the front value
+    private final int minCapacity; // the array never shrinks below this, a power of two
+    private int dequeSize; // number of values in the deque
+
+    // Construct an empty deque.
+    public LongDeque() {
+        this(MIN_CAPACITY);
+    }
+
+    // Construct an empty deque whose array never shrinks below minCapacity slots, rounded up to a power of two. A
+    // deque that is drained and refilled in batches of up to minCapacity then keeps its array instead of halving it
+    // on every drain and doubling it again on every refill.
+    public LongDeque(int minCapacity) {
+        this.minCapacity = roundUpCapacity(minCapacity);
+        items = new long[this.minCapacity];
+    }
+
+    // smallest power of two that is at least minCapacity and MIN_CAPACITY
+    private static int roundUpCapacity(int minCapacity) {
+        if (minCapacity < 1 || minCapacity > 1 << 30) throw new IllegalArgumentException("Minimum capacity has to be between 1 and 2^30");
+        return (minCapacity <= MIN_CAPACITY) ? MIN_CAPACITY : Integer.highestOneBit(minCapacity - 1) << 1;
+    }
+
+    // Is the deque empty?
+    public boolean isEmpty() { return (dequeSize == 0); }
+
+    // Return the number of values on the deque.
+    public int size() { return dequeSize; }
+
+    // index of the i-th value from the front
+    private int index(int i) {
+        return (head + i) & (items.length - 1);
+    }
+
+    // move the values to a new array of the given capacity, front value first
+    private void resize(int capacity) {
+        long[] resized = new long[capacity];
+
+        int firstRun = Math.min(dequeSize, items.length - head);
+        System.arraycopy(items, head, resized, 0, firstRun);
+        System.arraycopy(items, 0, resized, firstRun, dequeSize - firstRun);
+
+        items = resized;
+        head = 0;
+    }
+
+    // halve the array once it is a quarter full, down to the minimum capacity
+    private void shrinkIfSparse() {
+        if (items.length > minCapacity && dequeSize <= items.length / 4) resize(items.length / 2);
+    }
+
+    // Add a value to the front.
+    public void addFirst(long value) {
+        if (dequeSize == items.length) resize(2 * items.length);
+
+        head = (head - 1) & (items.length - 1);
+        items[head] = value;
+        dequeSize++;
+    }
+
+    // Add the value to the end.
+    public void addLast(long value) {
+        if (dequeSize == items.length) resize(2 * items.length);
+
+        items[index(dequeSize)] = value;
+        dequeSize++;
+    }
+
+    // remove and return the value from the front
+    public long removeFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+
+        long value = items[head];
+        head = (head + 1) & (items.length - 1);
+        dequeSize--;
+
+        shrinkIfSparse();
+        return value;
+    }
+
+    // remove and return the value from the end
+    public long removeLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+
+        long value = items[index(dequeSize - 1)];
+        dequeSize--;
+
+        shrinkIfSparse();
+        return value;
+    }
+
+    // Return an iterator over values in order from front to end; nextLong() reads them without boxing
+    public PrimitiveIterator.OfLong iterator() {
+        return new ArrayIterator();
+    }
+
+    // Inner class walking the ring buffer from the front
+    private class ArrayIterator implements PrimitiveIterator.OfLong {
+        private int i = 0; // position of the next value, counted from the front
+
+        public boolean hasNext() { return i < dequeSize; }
+        public void remove() { throw new UnsupportedOperationException(); }
+
+        public long nextLong() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return items[index(i++)];
+        }
+    }
+
+    // unit testing: random operations checked against ResizingArrayDeque, with values beyond the int range
+    public static void main(String[] args) {
+
+        int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+        StdOut.println("Check " + operations + " random operations against ResizingArrayDeque");
+
+        LongDeque longs = new LongDeque();
+        ResizingArrayDeque<Long> boxed = new ResizingArrayDeque<>();
+
+        for (int i = 0; i < operations; i++) {
+            // phases that mostly grow and then mostly shrink, so the array resizes both ways
+            boolean growing = (i / 100000) % 2 == 0;
+            boolean add = growing ? StdRandom.uniform(4) != 0 : StdRandom.uniform(4) == 0;
+            boolean front = StdRandom.uniform(2) == 0;
+            long value = ((long) i << 32) | i;
+
+            if (add || boxed.isEmpty()) {
+                if (front) { longs.addFirst(value); boxed.addFirst(value); }
+                else { longs.addLast(value); boxed.addLast(value); }
+            }
+            else {
+                long fromLongs = front ? longs.removeFirst() : longs.removeLast();
+                long fromBoxed = front ? boxed.removeFirst() : boxed.removeLast();
+                if (fromLongs != fromBoxed) throw new IllegalStateException("Removed " + fromLongs + ", expected " + fromBoxed);
+            }
+            if (longs.size() != boxed.size()) throw new IllegalStateException("Size " + longs.size() + ", expected " + boxed.size());
+        }
+
+        PrimitiveIterator.OfLong values = longs.iterator();
+        for (long expected : boxed) {
+            if (values.nextLong() != expected) throw new IllegalStateException("Iterators disagree");
+        }
+        if (values.hasNext()) throw new IllegalStateException("Iterator ran past the end");
+        StdOut.println("Both deques agree; " + longs.size() + " values left");
+    }
+}
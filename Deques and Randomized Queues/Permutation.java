@@ -5,11 +5,20 @@ import java.util.NoSuchElementException;
 
 /**
  * Created by Philip Ivanov
+ *
+ * Usage: Permutation k [reservoir]
+ * The reservoir mode keeps only k tokens in memory (see ReservoirSampler) and reads standard input with
+ * ByteTokenizer, so it suits inputs too large to hold.
  */
 public class Permutation {
     public static void main(String[] args) {
         int k = Integer.parseInt(args[0]);
 
+        if (args.length > 1 && "reservoir".equals(args[1])) {
+            printReservoirSample(k);
+            return;
+        }
+
         RandomizedQueue<String> sequenceOfStrings = new RandomizedQueue<>();
 
         while (!StdIn.isEmpty()) {
@@ -27,4 +36,24 @@ public class Permutation {
             }
         }
     }
-}
\ No newline at end of file
+
+    // one pass over standard input, keeping a uniformly random sample of k tokens; the tokens the sampler passes
+    // over are skipped without being decoded
+    private static void printReservoirSample(int k) {
+        ReservoirSampler<String> sampler = new ReservoirSampler<>(k);
+        ByteTokenizer tokens = new ByteTokenizer(System.in);
+
+        while (tokens.hasNext()) {
+            if (sampler.wants()) {
+                sampler.add(tokens.next());
+            }
+            else {
+                tokens.skip();
+                sampler.skip();
+            }
+        }
+
+        for (String item : sampler.sample()) StdOut.println(item);
+        if (sampler.seen() < k) StdOut.println("There are no items at index " + sampler.seen());
+    }
+}
@@ -3,6 +3,12 @@
  *
  * A randomized queue is similar to a stack or queue, except that the item removed is chosen
  * uniformly at random from items in the data structure.
+ *
+ * The items are kept in a resizing array in no particular order: dequeue() picks a uniform index and moves the last
+ * item into the hole, so every operation is constant amortized time.
+ *
+ * An iterator copies the items once when it is created and shuffles the copy lazily, one Fisher-Yates step per
+ * next(), so iterators are independent of each other and of later changes to the queue.
  */
 
 import java.util.Iterator;
@@ -13,96 +19,60 @@ import edu.princeton.cs.algs4.StdRandom;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
 
-    private Node head; // Link to head of queue.
-    private int numberOfNodes = 0;  // Number of nodes in the deque.
+    private static final int MIN_CAPACITY = 8;
+
+    private Item[] items; // items[0 .. numberOfItems - 1] hold the queue, in no particular order
+    private int numberOfItems = 0;  // Number of items in the queue.
 
 
     // construct an empty randomized queue
     public RandomizedQueue() {
-        isEmpty();
+        items = newArray(MIN_CAPACITY);
     }
 
-    // nested inner class that defines a node
-    private class Node {
-        private Item item;
-        private Node next;
-        private Node previous;
+    @SuppressWarnings("unchecked")
+    private static <Item> Item[] newArray(int capacity) {
+        return (Item[]) new Object[capacity];
     }
 
-    // if the randomized queue empty, construct an empty queue
+    // is the randomized queue empty?
     public boolean isEmpty() {
-        if (head == null) head = new Node();
-
         return (size() == 0);
     }
 
     // return the number of items on the randomized queue
     public int size() {
-        return numberOfNodes;
+        return numberOfItems;
+    }
+
+    // move the items to a new array of the given capacity
+    private void resize(int capacity) {
+        Item[] resized = newArray(capacity);
+        System.arraycopy(items, 0, resized, 0, numberOfItems);
+        items = resized;
     }
 
     // add the item
     public void enqueue(Item item) {
         if (item == null) throw new IllegalArgumentException();
 
-        // If queue is empty, then fill out the item field of the empty node
-        if (isEmpty()) {
-            head.item = item;
-        }
-        else {
-            // save a link to the current head of the queue
-            Node previousHead = head;
-
-            // Create a new Node object and set it's values
-            head = new Node();
-            head.item = item;
-            head.next = previousHead;
-
-            previousHead.previous = head;
-        }
-
-        numberOfNodes++;
+        if (numberOfItems == items.length) resize(2 * items.length);
+        items[numberOfItems++] = item;
     }
 
     // remove and return a random item
     public Item dequeue() {
         if (isEmpty()) throw new NoSuchElementException();
 
-        // link pointing to the head of the rand queue
-        Node current = head;
-        Item item = current.item;
-
-        if (size() <= 1) { // If this is the last node - reset head.
-            head = null;
-        }
-        else { // there are at least two nodes in the queue
-            int randomNode = StdRandom.uniform(1, numberOfNodes + 1);
-
-            for (int i = 1; i < randomNode; i++) current = current.next;
-
-            item = current.item;
-
-            //  when it's the first node reset the head to the next node
-            if (current.previous == null) {
-                head = current.next;
-                head.previous = null;
-            }
-            else if (current.next == null) { // when it's the last node reassign the end to the one before it and remove it
-                Node newEnd = current.previous;
-                newEnd.next = null;
-            }
-            else {
-                // node is somewhere in between, so link the two adjacent nodes together
-                Node beforeCurrent = current.previous;
-                Node afterCurrent = current.next;
-
-                beforeCurrent.next = afterCurrent;
-                afterCurrent.previous = beforeCurrent;
-            }
+        // the order of the array does not matter, so the last item fills the hole left by the chosen one
+        int randomIndex = StdRandom.uniform(numberOfItems);
+        Item item = items[randomIndex];
+        items[randomIndex] = items[--numberOfItems];
+        items[numberOfItems] = null; // avoid loitering
 
-        }
+        // halve the array once it is a quarter full
+        if (items.length > MIN_CAPACITY && numberOfItems <= items.length / 4) resize(items.length / 2);
 
-        numberOfNodes--;
         return item;
     }
 
@@ -110,14 +80,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     public Item sample() {
         if (isEmpty()) throw new NoSuchElementException();
 
-        Node current = head;
-        int randomNode = StdRandom.uniform(1, numberOfNodes + 1);
-
-        if (randomNode > 1) {
-            for (int i = 1; i < randomNode; i++) current = current.next;
-        }
-
-        return current.item;
+        return items[StdRandom.uniform(numberOfItems)];
     }
 
 
@@ -131,51 +94,35 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
      */
     private class RandomOrderIterator implements Iterator<Item> {
 
-        private Node current = head;
-        private int[] nodeOrder;  // holds the order of nodes
-        private int pointer = 0; // Pointer to the current element in the nodeOrder array
+        private final Item[] remaining; // a copy of the items; remaining[pointer ..] are the ones not returned yet
+        private int pointer = 0; // Pointer to the next position of the random order
 
         public RandomOrderIterator() {
-
-            if (size() >= 1) {
-                nodeOrder = new int[numberOfNodes];
-
-                // Fill out the sequence of next operations
-                for (int i = 0; i < numberOfNodes; i++) {
-                    nodeOrder[i] = i + 1;
-                }
-
-                StdRandom.shuffle(nodeOrder);
-            }
-
+            remaining = newArray(numberOfItems);
+            System.arraycopy(items, 0, remaining, 0, numberOfItems);
         }
 
-        // include current.item check to account for the requirement to start with an empty queue
-        public boolean hasNext() { return (current != null && current.item != null && (pointer < size())); }
+        public boolean hasNext() { return (pointer < remaining.length); }
         public void remove() { throw new UnsupportedOperationException(); }
 
+        // one step of Fisher-Yates at a time: swap a uniform pick from the items not returned yet into place, so an
+        // iteration that stops early draws only as many random numbers as it returned items
         public Item next() {
             if (!hasNext()) throw new NoSuchElementException();
 
-            // Start from the beginning
-            current = head;
-            for (int i = 1; i < nodeOrder[pointer]; i++) current = current.next;
-            Item item = current.item;
-
-            pointer++;
+            int chosen = StdRandom.uniform(pointer, remaining.length);
+            Item item = remaining[chosen];
+            remaining[chosen] = remaining[pointer];
+            remaining[pointer++] = null; // the iterator no longer needs it
 
             return item;
         }
     }
 
-    private void printNodes() {
+    private void printItems() {
         if (size() <= 0) throw new NoSuchElementException("Queue is empty");
 
-        Node current = head;
-        while (current != null) {
-            StdOut.print(current.item + " ");
-            current = current.next;
-        }
+        for (int i = 0; i < numberOfItems; i++) StdOut.print(items[i] + " ");
     }
 
     // unit testing (optional)
@@ -233,21 +180,80 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 
             /* @Test */
             StdOut.println("Remove single item: " + ranInts.dequeue());
-            StdOut.println("Constituting nodes: ");
-            ranInts.printNodes();
+            StdOut.println("Remaining items: ");
+            ranInts.printItems();
 
             /* @Test */
             for (int i = 1; i <= (testSeed/2); i++) {
                 StdOut.print("\nRemove " + i + " items: ");
                 for (int j = 0; j < i; j++) StdOut.print(ranInts.dequeue() + " ");
-                StdOut.println("\nConstituting nodes: ");
-                ranInts.printNodes();
+                StdOut.println("\nRemaining items: ");
+                ranInts.printItems();
             }
         }
         catch (NoSuchElementException e) {
             StdOut.println(e);
         }
 
+        /* @Test */
+        StdOut.println("\n\nCheck that every item is equally likely to be dequeued first");
+        int[] firstDequeued = new int[5];
+        int rounds = 100000;
+        for (int round = 0; round < rounds; round++) {
+            RandomizedQueue<Integer> five = new RandomizedQueue<>();
+            for (int i = 0; i < firstDequeued.length; i++) five.enqueue(i);
+            firstDequeued[five.dequeue()]++;
+        }
+        for (int i = 0; i < firstDequeued.length; i++) StdOut.print(i + ": " + (double) firstDequeued[i] / rounds + " ");
+
+        /* @Test */
+        StdOut.println("\n\nCheck that every item is equally likely at every position of the iteration order");
+        int[][] positions = new int[4][4];
+        RandomizedQueue<Integer> four = new RandomizedQueue<>();
+        for (int i = 0; i < 4; i++) four.enqueue(i);
+        for (int round = 0; round < rounds; round++) {
+            int position = 0;
+            for (int item : four) positions[item][position++]++;
+        }
+        for (int i = 0; i < 4; i++) {
+            StdOut.print(i + ":");
+            for (int position = 0; position < 4; position++) StdOut.printf(" %.3f", (double) positions[i][position] / rounds);
+            StdOut.print("  ");
+        }
+
+        /* @Test */
+        StdOut.println("\n\nCheck that an iterator is independent of dequeue() and of other iterators");
+        RandomizedQueue<Integer> changing = new RandomizedQueue<>();
+        for (int i = 0; i < 100; i++) changing.enqueue(i);
+        Iterator<Integer> first = changing.iterator();
+        Iterator<Integer> second = changing.iterator();
+        int seenSum = first.next();
+        while (changing.size() > 3) changing.dequeue(); // shrinks the array twice
+        int seen = 1;
+        while (first.hasNext()) {
+            seenSum += first.next();
+            seen++;
+        }
+        while (second.hasNext()) seenSum += second.next();
+        if (seen != 100 || seenSum != 2 * 4950) throw new IllegalStateException("Iterators returned the wrong items");
+        StdOut.println("Both iterators returned all 100 items while the queue shrank to " + changing.size());
+
+        /* @Test */
+        int large = 1000000;
+        long start = System.nanoTime();
+        RandomizedQueue<Integer> big = new RandomizedQueue<>();
+        for (int i = 0; i < large; i++) big.enqueue(i);
+        long sum = 0;
+        while (!big.isEmpty()) sum += big.dequeue();
+        StdOut.println("\n\nEnqueue and dequeue " + large + " items: " + (System.nanoTime() - start) / 1000000 + " ms, sum " + sum);
+
+        /* @Test */
+        for (int i = 0; i < large; i++) big.enqueue(i);
+        start = System.nanoTime();
+        sum = 0;
+        for (int item : big) sum += item;
+        StdOut.println("Iterate over " + large + " items: " + (System.nanoTime() - start) / 1000000 + " ms, sum " + sum);
+
         /* @Test */
         StdOut.println("\nCheck random calls to enqueue(), sample(), and size()");
 
@@ -0,0 +1,118 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Uniformly random k-subset of a stream of unknown length, in O(k) memory: a reservoir sample using Li's
+ * Algorithm L. The reservoir takes the first k items. Instead of drawing a random number for every later item, as
+ * Algorithm R does, it draws the length of the run of items to pass over (a geometric skip), so only O(k log(n/k))
+ * random numbers are drawn over n items. The caller asks wants() before producing each item and can pass over the
+ * ones that are not wanted with skip(), without materializing them at all.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ReservoirSampler<Item> {
+
+    private final Item[] reservoir;
+    private final int k;
+
+    private long seen = 0; // number of items of the stream so far, kept or not
+    private long next; // 1-based position in the stream of the next item that enters the reservoir
+    private double w; // Algorithm L state: the largest of the k smallest random keys seen so far
+
+    @SuppressWarnings("unchecked")
+    public ReservoirSampler(int k) {
+        if (k < 0) throw new IllegalArgumentException("Sample size can not be negative");
+
+        this.k = k;
+        reservoir = (Item[]) new Object[k];
+        next = k;
+        if (k > 0) {
+            w = Math.exp(Math.log(random()) / k);
+            advance();
+        }
+    }
+
+    // uniform in (0, 1), never 0 so that its logarithm is finite
+    private static double random() {
+        return 1.0 - StdRandom.uniform();
+    }
+
+    // move next past a geometrically distributed number of items, then update w for the item it lands on
+    private void advance() {
+        double skip = Math.floor(Math.log(random()) / Math.log1p(-w));
+        next = (skip >= Long.MAX_VALUE - next) ? Long.MAX_VALUE : next + (long) skip + 1;
+        w *= Math.exp(Math.log(random()) / k);
+    }
+
+    // will the next item of the stream enter the reservoir?
+    public boolean wants() {
+        return seen < k || seen + 1 == next;
+    }
+
+    // offer the next item of the stream
+    public void add(Item item) {
+        if (item == null) throw new IllegalArgumentException();
+
+        seen++;
+        if (seen <= k) {
+            reservoir[(int) seen - 1] = item;
+        }
+        else if (seen == next) {
+            reservoir[StdRandom.uniform(k)] = item;
+            advance();
+        }
+    }
+
+    // pass over the next item of the stream without producing it; only valid when wants() is false
+    public void skip() {
+        if (wants()) throw new IllegalStateException("The next item enters the reservoir");
+        seen++;
+    }
+
+    // number of items of the stream so far
+    public long seen() {
+        return seen;
+    }
+
+    // the sample: min(k, seen) distinct items of the stream, in random order
+    public List<Item> sample() {
+        Item[] sample = Arrays.copyOf(reservoir, (int) Math.min(k, seen));
+        StdRandom.shuffle(sample);
+        return Arrays.asList(sample);
+    }
+
+    // unit testing: every item of a short stream should be in the sample with probability k / n, and a long stream
+    // should need few kept items
+    public static void main(String[] args) {
+
+        int n = 10, k = 3, rounds = 200000;
+        int[] included = new int[n];
+        for (int round = 0; round < rounds; round++) {
+            ReservoirSampler<Integer> sampler = new ReservoirSampler<>(k);
+            for (int i = 0; i < n; i++) {
+                if (sampler.wants()) sampler.add(i);
+                else sampler.skip();
+            }
+            for (int item : sampler.sample()) included[item]++;
+        }
+
+        StdOut.println("Inclusion frequencies, expected " + (double) k / n + ":");
+        for (int i = 0; i < n; i++) StdOut.printf("%d: %.4f ", i, (double) included[i] / rounds);
+
+        long length = 100000000L;
+        int kept = 0;
+        ReservoirSampler<Long> sampler = new ReservoirSampler<>(100);
+        for (long i = 0; i < length; i++) {
+            if (sampler.wants()) {
+                sampler.add(i);
+                kept++;
+            }
+            else sampler.skip();
+        }
+        StdOut.println("\nStream of " + length + " items, k = 100: " + kept + " items entered the reservoir");
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ *  Deque with the API of Deque, backed by a circular array instead of a linked list. The capacity is a power of two,
+ *  so an index wraps around with a mask rather than a division; the array doubles when it fills up and halves when it
+ *  drops to a quarter full, which keeps every operation constant amortized time and the array at most four times the
+ *  number of items above the minimum. A minimum capacity given at construction keeps the array from shrinking below
+ *  it, for deques that are drained and refilled in batches; IntDeque and LongDeque take the same option. Items sit
+ *  next to each other in memory, so iteration is a linear scan instead of a chain of node references, and there is no
+ *  per-item node to allocate.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class ResizingArrayDeque<Item> implements Iterable<Item> {
+
+    private static final int MIN_CAPACITY = 8; // a power of two
+
+    private Item[] items; // ring buffer; the deque occupies items[head], items[head + 1], ... wrapping around
+    private int head; // index of the front item
+    private final int minCapacity; // the array never shrinks below this, a power of two
+    private int dequeSize; // number of items in the deque
+
+    // Construct an empty deque.
+    public ResizingArrayDeque() {
+        this(MIN_CAPACITY);
+    }
+
+    // Construct an empty deque whose array never shrinks below minCapacity slots, rounded up to a power of two. A
+    // deque that is drained and refilled in batches of up to minCapacity then keeps its array instead of halving it
+    // on every drain and doubling it again on every refill.
+    public ResizingArrayDeque(int minCapacity) {
+        this.minCapacity = roundUpCapacity(minCapacity);
+        items = newArray(this.minCapacity);
+    }
+
+    // smallest power of two that is at least minCapacity and MIN_CAPACITY
+    private static int roundUpCapacity(int minCapacity) {
+        if (minCapacity < 1 || minCapacity > 1 << 30) throw new IllegalArgumentException("Minimum capacity has to be between 1 and 2^30");
+        return (minCapacity <= MIN_CAPACITY) ? MIN_CAPACITY : Integer.highestOneBit(minCapacity - 1) << 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <Item> Item[] newArray(int capacity) {
+        return (Item[]) new Object[capacity];
+    }
+
+    // Is the deque empty?
+    public boolean isEmpty() { return (dequeSize == 0); }
+
+    // Return the number of items on the deque.
+    public int size() { return dequeSize; }
+
+    private void verifyItemIsNotNull(Item item) {
+        if (item == null) throw new IllegalArgumentException();
+    }
+
+    // index of the i-th item from the front
+    private int index(int i) {
+        return (head + i) & (items.length - 1);
+    }
+
+    // move the items to a new array of the given capacity, front item first
+    private void resize(int capacity) {
+        Item[] resized = newArray(capacity);
+
+        // the items wrap around at most once: copy the run up to the end of the array, then the run from its start
+        int firstRun = Math.min(dequeSize, items.length - head);
+        System.arraycopy(items, head, resized, 0, firstRun);
+        System.arraycopy(items, 0, resized, firstRun, dequeSize - firstRun);
+
+        items = resized;
+        head = 0;
+    }
+
+    private int capacity() {
+        return items.length;
+    }
+
+    // halve the array once it is a quarter full, down to the minimum capacity
+    private void shrinkIfSparse() {
+        if (items.length > minCapacity && dequeSize <= items.length / 4) resize(items.length / 2);
+    }
+
+    // Add an item to the front.
+    public void addFirst(Item item) {
+        verifyItemIsNotNull(item);
+        if (dequeSize == items.length) resize(2 * items.length);
+
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        dequeSize++;
+    }
+
+    // Add the item to the end.
+    public void addLast(Item item) {
+        verifyItemIsNotNull(item);
+        if (dequeSize == items.length) resize(2 * items.length);
+
+        items[index(dequeSize)] = item;
+        dequeSize++;
+    }
+
+    // remove and return the item from the front
+    public Item removeFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+
+        Item item = items[head];
+        items[head] = null; // avoid loitering
+        head = (head + 1) & (items.length - 1);
+        dequeSize--;
+
+        shrinkIfSparse();
+        return item;
+    }
+
+    // remove and return the item from the end
+    public Item removeLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+
+        int last = index(dequeSize - 1);
+        Item item = items[last];
+        items[last] = null; // avoid loitering
+        dequeSize--;
+
+        shrinkIfSparse();
+        return item;
+    }
+
+    // Return an iterator over items in order from front to end
+    public Iterator<Item> iterator() {
+        return new ArrayIterator();
+    }
+
+    // Inner class walking the ring buffer from the front
+    private class ArrayIterator implements Iterator<Item> {
+        private int i = 0; // position of the next item, counted from the front
+
+        public boolean hasNext() { return i < dequeSize; }
+        public void remove() { throw new UnsupportedOperationException(); }
+
+        public Item next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return items[index(i++)];
+        }
+    }
+
+    private void printItems() {
+        if (size() <= 0) throw new NoSuchElementException("Queue is empty");
+
+        for (Item item : this) StdOut.print(item + " ");
+    }
+
+    // unit testing: the test sequence of Deque, then random operations checked against the linked Deque
+    public static void main(String[] args) {
+
+        ResizingArrayDeque<Integer> dInts = new ResizingArrayDeque<>();
+
+        StdOut.println("\nTest exception on addFirst:");
+        try {
+            dInts.addFirst(null);
+        }
+        catch (IllegalArgumentException e) {
+            StdOut.println(e);
+        }
+
+        StdOut.println("\nAdd integers ranging from 3 to 0 to the end and 2 to 0 to the front of the deque");
+        for (int i = 3; i >= 0; --i) dInts.addLast(i);
+        for (int i = 2; i >= 0; --i) dInts.addFirst(i);
+        dInts.printItems();
+
+        StdOut.println("\nRemove first item: " + dInts.removeFirst() + ", remove last item: " + dInts.removeLast());
+        dInts.printItems();
+
+        int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+        StdOut.println("\n\nCheck " + operations + " random operations against Deque");
+
+        ResizingArrayDeque<Integer> array = new ResizingArrayDeque<>();
+        Deque<Integer> linked = new Deque<>();
+        int largestCapacity = 0;
+
+        for (int i = 0; i < operations; i++) {
+            // phases that mostly grow and then mostly shrink, so the array resizes both ways
+            boolean growing = (i / 100000) % 2 == 0;
+            boolean add = growing ? StdRandom.uniform(4) != 0 : StdRandom.uniform(4) == 0;
+            boolean front = StdRandom.uniform(2) == 0;
+
+            if (add || linked.isEmpty()) {
+                if (front) { array.addFirst(i); linked.addFirst(i); }
+                else { array.addLast(i); linked.addLast(i); }
+            }
+            else {
+                int fromArray = front ? array.removeFirst() : array.removeLast();
+                int fromLinked = front ? linked.removeFirst() : linked.removeLast();
+                if (fromArray != fromLinked) throw new IllegalStateException("Removed " + fromArray + ", expected " + fromLinked);
+            }
+
+            if (array.size() != linked.size()) throw new IllegalStateException("Size " + array.size() + ", expected " + linked.size());
+            if (array.capacity() > MIN_CAPACITY && array.size() < array.capacity() / 4) throw new IllegalStateException("Array did not shrink");
+            largestCapacity = Math.max(largestCapacity, array.capacity());
+        }
+
+        Iterator<Integer> expected = linked.iterator();
+        for (int item : array) {
+            if (item != expected.next()) throw new IllegalStateException("Iterators disagree");
+        }
+        if (expected.hasNext()) throw new IllegalStateException("Iterator ended early");
+
+        StdOut.println("Both deques agree; " + array.size() + " items left, largest capacity " + largestCapacity);
+
+        // with a minimum capacity, draining the deque leaves the array as it is
+        ResizingArrayDeque<Integer> batches = new ResizingArrayDeque<>(1000);
+        for (int i = 0; i < 1000; i++) batches.addLast(i);
+        while (!batches.isEmpty()) batches.removeFirst();
+        if (batches.capacity() != 1024) throw new IllegalStateException("Capacity " + batches.capacity() + " after a drain, expected 1024");
+        StdOut.println("A deque with a minimum capacity of 1000 keeps its array of " + batches.capacity() + " when drained");
+    }
+}
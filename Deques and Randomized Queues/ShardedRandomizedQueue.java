@@ -0,0 +1,222 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Randomized queue for many threads. The items are spread over shards, each an array with its own lock and its own
+ * random number generator, laid out like RandomizedQueue: dequeue swaps the chosen item with the last one. A thread
+ * always enqueues into the same shard, picked round-robin the first time it enqueues, so producers on different
+ * threads rarely meet on a lock.
+ *
+ * dequeue() and sample() first pick a shard with probability proportional to its size, in one pass over the shard
+ * sizes, then a uniform item within it, so every item is close to equally likely. The sizes can be stale by the
+ * operations in flight, which is the only departure from exact uniformity; if the chosen shard has been emptied
+ * meanwhile, the next non-empty shard is used. With other threads removing items, callers can not rely on isEmpty(),
+ * so dequeue() and sample() return null rather than throw when every shard is empty.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ShardedRandomizedQueue<Item> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    // one array-backed randomized queue; the fields are guarded by the shard itself, except that size is also read
+    // without the lock for the snapshots
+    private static final class Shard<Item> {
+        private Item[] items;
+        private volatile int size;
+        private final SplittableRandom random;
+
+        @SuppressWarnings("unchecked")
+        Shard(SplittableRandom random) {
+            this.items = (Item[]) new Object[MIN_CAPACITY];
+            this.random = random;
+        }
+
+        synchronized void add(Item item) {
+            if (size == items.length) items = Arrays.copyOf(items, 2 * items.length);
+            items[size] = item;
+            size = size + 1;
+        }
+
+        // remove a uniform item, or return null if the shard is empty
+        synchronized Item remove() {
+            int n = size;
+            if (n == 0) return null;
+
+            int chosen = random.nextInt(n);
+            Item item = items[chosen];
+            items[chosen] = items[n - 1];
+            items[n - 1] = null; // avoid loitering
+            size = n - 1;
+
+            if (items.length > MIN_CAPACITY && n - 1 <= items.length / 4) items = Arrays.copyOf(items, items.length / 2);
+            return item;
+        }
+
+        // a uniform item, or null if the shard is empty
+        synchronized Item sample() {
+            return (size == 0) ? null : items[random.nextInt(size)];
+        }
+    }
+
+    private final Shard<Item>[] shards;
+    private final AtomicInteger nextShard = new AtomicInteger(); // round-robin assignment of shards to threads
+    private final ThreadLocal<Shard<Item>> homeShard =
+            ThreadLocal.withInitial(() -> shard(nextShard.getAndIncrement()));
+
+    // construct an empty queue with a shard per available processor
+    public ShardedRandomizedQueue() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // construct an empty queue with the given number of shards
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ShardedRandomizedQueue(int numberOfShards) {
+        if (numberOfShards < 1) throw new IllegalArgumentException("Number of shards has to be positive");
+
+        SplittableRandom seeds = new SplittableRandom();
+        shards = (Shard<Item>[]) new Shard[numberOfShards];
+        for (int i = 0; i < numberOfShards; i++) shards[i] = new Shard<>(seeds.split());
+    }
+
+    private Shard<Item> shard(int i) {
+        return shards[Math.floorMod(i, shards.length)];
+    }
+
+    // is the queue empty? Only a snapshot while other threads are working on it
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // number of items on the queue; only a snapshot while other threads are working on it
+    public int size() {
+        int size = 0;
+        for (Shard<Item> shard : shards) size += shard.size;
+        return size;
+    }
+
+    // add the item to the calling thread's shard
+    public void enqueue(Item item) {
+        if (item == null) throw new IllegalArgumentException();
+        homeShard.get().add(item);
+    }
+
+    // index of a shard picked with probability proportional to its size as read, or -1 if all were empty. One pass
+    // without a snapshot array: shard i replaces the pick so far with probability size(i) / (sizes up to i), which
+    // leaves every shard picked with probability size / total
+    private int pickShard() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int picked = -1;
+        int total = 0;
+        for (int i = 0; i < shards.length; i++) {
+            int size = shards[i].size;
+            if (size == 0) continue;
+            total += size;
+            if (random.nextInt(total) < size) picked = i;
+        }
+        return picked;
+    }
+
+    // remove and return a random item, or null if the queue is empty
+    public Item dequeue() {
+        int first = pickShard();
+        if (first < 0) return null;
+
+        // the chosen shard first, then the others in turn in case it has been emptied since the snapshot
+        for (int i = 0; i < shards.length; i++) {
+            Item item = shard(first + i).remove();
+            if (item != null) return item;
+        }
+        return null;
+    }
+
+    // return a random item, but do not remove it, or null if the queue is empty
+    public Item sample() {
+        int first = pickShard();
+        if (first < 0) return null;
+
+        for (int i = 0; i < shards.length; i++) {
+            Item item = shard(first + i).sample();
+            if (item != null) return item;
+        }
+        return null;
+    }
+
+    // producers enqueue disjoint ranges while consumers dequeue; every item has to come out exactly once
+    private static void stress(int producers, int consumers, int itemsPerProducer) throws InterruptedException {
+        ShardedRandomizedQueue<Integer> queue = new ShardedRandomizedQueue<>(producers);
+        int total = producers * itemsPerProducer;
+        AtomicIntegerArray received = new AtomicIntegerArray(total);
+        AtomicInteger remaining = new AtomicInteger(total);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            int first = p * itemsPerProducer;
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = first; i < first + itemsPerProducer; i++) queue.enqueue(i);
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads[producers + c] = new Thread(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                while (remaining.get() > 0) {
+                    Integer item = queue.dequeue();
+                    if (item != null) {
+                        received.incrementAndGet(item);
+                        remaining.decrementAndGet();
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) thread.start();
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        for (int i = 0; i < total; i++) {
+            if (received.get(i) != 1) throw new IllegalStateException("Item " + i + " dequeued " + received.get(i) + " times");
+        }
+    }
+
+    // unit testing: uniformity across unevenly filled shards, then concurrent producers and consumers
+    public static void main(String[] args) throws InterruptedException {
+
+        // shard 0 gets one item and shard 1 gets 9, so an even pick between shards would choose item 0 half the
+        // time instead of a tenth
+        int rounds = 100000;
+        int[] firstDequeued = new int[10];
+        for (int round = 0; round < rounds; round++) {
+            ShardedRandomizedQueue<Integer> queue = new ShardedRandomizedQueue<>(2);
+            queue.shards[0].add(0);
+            for (int i = 1; i < 10; i++) queue.shards[1].add(i);
+            firstDequeued[queue.dequeue()]++;
+        }
+        StdOut.println("First item dequeued, expected 0.1 each:");
+        for (int i = 0; i < firstDequeued.length; i++) StdOut.printf("%d: %.4f ", i, (double) firstDequeued[i] / rounds);
+        StdOut.println();
+
+        int itemsPerProducer = (args.length > 0) ? Integer.parseInt(args[0]) : 250000;
+        long start = System.nanoTime();
+        stress(4, 4, itemsPerProducer);
+        StdOut.println("4 producers, 4 consumers: every one of " + 4 * itemsPerProducer + " items dequeued once, "
+                + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+}
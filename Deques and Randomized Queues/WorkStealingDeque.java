@@ -0,0 +1,193 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ *  Lock-free deque for work-stealing schedulers, after Chase and Lev ("Dynamic Circular Work-Stealing Deque", 2005).
+ *  A single owner thread adds and removes items at the end, like a stack; any number of thief threads remove items
+ *  from the front. The owner's operations take no atomic read-modify-write unless the deque is down to its last item,
+ *  and thieves settle races among themselves and with the owner with one compare-and-set on top.
+ *
+ *  The items live in a circular array indexed by two ever-increasing counters, top (front, advanced by thieves and
+ *  by the owner taking the last item) and bottom (end, moved only by the owner). When the array fills up, the owner
+ *  copies the items to one twice the size; a thief still reading the old array finds the same items there, because
+ *  old arrays are never written again. The array does not shrink, and slots are not cleared when their item is
+ *  removed (a thief may still be reading them), so removed items stay reachable until the slot is reused.
+ *
+ *  Unlike Deque, the removals return null instead of throwing when there is nothing to take, as callers racing
+ *  other threads can not check isEmpty() first.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class WorkStealingDeque<Item> {
+
+    private static final int MIN_CAPACITY = 32; // a power of two
+
+    // Every access below is volatile, and so sequentially consistent: the owner's write of bottom in removeLast
+    // is seen before its read of top, which is the store-load fence the algorithm needs.
+    private final AtomicLong top = new AtomicLong(); // index of the front item
+    private volatile long bottom; // index one past the end item
+    private volatile AtomicReferenceArray<Item> items = new AtomicReferenceArray<>(MIN_CAPACITY);
+
+    // Is the deque empty? Only a snapshot while other threads are working on it
+    public boolean isEmpty() { return size() == 0; }
+
+    // Return the number of items on the deque; only a snapshot while other threads are working on it
+    public int size() {
+        long size = bottom - top.get();
+        return (size < 0) ? 0 : (int) size;
+    }
+
+    private void verifyItemIsNotNull(Item item) {
+        if (item == null) throw new IllegalArgumentException();
+    }
+
+    // copy the items in [t, b) to an array twice the size; owner only
+    private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> old, long t, long b) {
+        AtomicReferenceArray<Item> grown = new AtomicReferenceArray<>(2 * old.length());
+        for (long i = t; i < b; i++) grown.setPlain(index(grown, i), old.getPlain(index(old, i)));
+        items = grown; // volatile write publishes the copied items
+        return grown;
+    }
+
+    private static int index(AtomicReferenceArray<?> array, long i) {
+        return (int) i & (array.length() - 1);
+    }
+
+    // Add the item to the end; owner only.
+    public void addLast(Item item) {
+        verifyItemIsNotNull(item);
+
+        long b = bottom;
+        long t = top.get();
+        AtomicReferenceArray<Item> a = items;
+        if (b - t >= a.length()) a = grow(a, t, b);
+
+        a.setRelease(index(a, b), item);
+        bottom = b + 1; // publishes the item to thieves
+    }
+
+    // remove and return the item from the end, or null if there is none; owner only
+    public Item removeLast() {
+        long b = bottom - 1;
+        AtomicReferenceArray<Item> a = items;
+        bottom = b; // claim the end item before looking at top
+
+        long t = top.get();
+        if (t > b) { // empty
+            bottom = b + 1;
+            return null;
+        }
+
+        Item item = a.get(index(a, b));
+        if (t < b) return item; // more than one item left, no thief can reach this one
+
+        // the last item: race the thieves for it by advancing top
+        if (!top.compareAndSet(t, t + 1)) item = null;
+        bottom = b + 1;
+        return item;
+    }
+
+    // remove and return the item from the front, or null if the deque is empty; any thread
+    public Item removeFirst() {
+        while (true) {
+            long t = top.get();
+            long b = bottom;
+            if (t >= b) return null;
+
+            AtomicReferenceArray<Item> a = items;
+            Item item = a.get(index(a, t));
+            if (top.compareAndSet(t, t + 1)) return item;
+            // another thief, or the owner taking the last item, got there first: look again
+        }
+    }
+
+    // stress test: one owner pushes and pops while thieves steal; every item has to be taken exactly once
+    private static void stress(int thieves, int itemsToAdd) throws InterruptedException {
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        AtomicIntegerArray taken = new AtomicIntegerArray(itemsToAdd);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean ownerDone = new AtomicBoolean();
+
+        Thread[] threads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                while (true) {
+                    Integer item = deque.removeFirst();
+                    if (item != null) taken.incrementAndGet(item);
+                    else if (ownerDone.get() && deque.isEmpty()) return;
+                }
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+        for (int i = 0; i < itemsToAdd; i++) {
+            deque.addLast(i);
+            // pop now and then, often enough to keep the deque short and race the thieves for the last item
+            if (i % 3 == 0) {
+                Integer item = deque.removeLast();
+                if (item != null) taken.incrementAndGet(item);
+            }
+        }
+        for (Integer item = deque.removeLast(); item != null; item = deque.removeLast()) taken.incrementAndGet(item);
+        ownerDone.set(true);
+        for (Thread thread : threads) thread.join();
+
+        for (int i = 0; i < itemsToAdd; i++) {
+            if (taken.get(i) != 1) throw new IllegalStateException("Item " + i + " taken " + taken.get(i) + " times with " + thieves + " thieves");
+        }
+    }
+
+    // race for a single item, many times: the owner's removeLast against one thief's removeFirst, exactly one wins
+    private static void lastItemRace(int rounds) throws InterruptedException {
+        int[] outcomes = new int[3]; // owner won, thief won, both (an error)
+        for (int round = 0; round < rounds; round++) {
+            WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+            deque.addLast(round);
+
+            Integer[] stolen = new Integer[1];
+            Thread thief = new Thread(() -> stolen[0] = deque.removeFirst());
+            thief.start();
+            Integer popped = deque.removeLast();
+            thief.join();
+
+            if ((popped == null) == (stolen[0] == null)) outcomes[2]++;
+            else outcomes[popped != null ? 0 : 1]++;
+        }
+        if (outcomes[2] != 0) throw new IllegalStateException(outcomes[2] + " rounds where the last item was taken twice or lost");
+        StdOut.println("Last item race over " + rounds + " rounds: owner won " + outcomes[0] + ", thief won " + outcomes[1]);
+    }
+
+    // unit testing: sequential behaviour, then the concurrent stress tests
+    public static void main(String[] args) throws InterruptedException {
+
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        for (int i = 0; i < 100; i++) deque.addLast(i);
+        if (deque.removeFirst() != 0 || deque.removeLast() != 99 || deque.size() != 98) throw new IllegalStateException("Sequential use is broken");
+        while (deque.removeLast() != null) { }
+        if (deque.removeFirst() != null || !deque.isEmpty()) throw new IllegalStateException("Deque should be empty");
+
+        int itemsToAdd = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+        int maxThieves = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+        for (int thieves = 1; thieves <= maxThieves; thieves *= 2) {
+            long startTime = System.nanoTime();
+            stress(thieves, itemsToAdd);
+            StdOut.println(thieves + " thieves: every one of " + itemsToAdd + " items taken exactly once, "
+                    + (System.nanoTime() - startTime) / 1000000 + " ms");
+        }
+
+        lastItemRace(20000);
+    }
+}
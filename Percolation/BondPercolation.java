@@ -0,0 +1,158 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Bond percolation on any Lattice: every site is present and the bonds between neighbouring sites are opened one by
+ * one. The system percolates once some site of the top layer is connected to some site of the bottom layer. Bonds are
+ * numbered bond = site * bondsPerSite() + slot over the forward slots of the lattice; ids whose slot has no neighbour
+ * are not bonds (see isBond).
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+public class BondPercolation {
+
+    // Root flags
+    private static final byte TOP = 1;
+    private static final byte BOTTOM = 2;
+
+    private final Lattice lattice;
+    private final int bondsPerSite;
+    private final long[] openBonds; // bitset of open bonds
+    private final byte[] flags; // TOP and BOTTOM flags, meaningful on union-find roots
+    private final GridUnionFind sites; // only union and find are used, so the row width does not matter
+
+    private int numberOfOpenBonds;
+    private boolean percolates;
+
+    // all bonds of the lattice closed
+    public BondPercolation(Lattice lattice) {
+        if ((long) lattice.sites() * lattice.bondsPerSite() > Integer.MAX_VALUE) throw new IllegalArgumentException("The lattice has too many bonds");
+
+        this.lattice = lattice;
+        bondsPerSite = lattice.bondsPerSite();
+        openBonds = new long[(lattice.sites() * bondsPerSite + 63) >>> 6];
+        flags = new byte[lattice.sites()];
+        sites = new GridUnionFind(lattice.sites(), 1);
+        reset();
+    }
+
+    // close every bond again, reusing the arrays
+    public void reset() {
+        Arrays.fill(openBonds, 0L);
+        for (int site = 0; site < flags.length; site++) {
+            byte siteFlags = 0;
+            if (lattice.isTop(site)) siteFlags |= TOP;
+            if (lattice.isBottom(site)) siteFlags |= BOTTOM;
+            flags[site] = siteFlags;
+        }
+        sites.reset();
+        numberOfOpenBonds = 0;
+
+        // a single-layer lattice percolates without any bond
+        percolates = flags[0] == (TOP | BOTTOM);
+    }
+
+    // number of bond ids, including the ids that are not bonds
+    public int bondIds() {
+        return lattice.sites() * bondsPerSite;
+    }
+
+    // does this id name a bond of the lattice?
+    public boolean isBond(int bond) {
+        return bond >= 0 && bond < bondIds() && lattice.neighbour(bond / bondsPerSite, bond % bondsPerSite) >= 0;
+    }
+
+    // open bond if it is not open already
+    public void open(int bond) {
+        if (bond < 0 || bond >= bondIds()) throw new IllegalArgumentException("Bond has to be between 0 and " + (bondIds() - 1) + ". Your entry is " + bond);
+        if ((openBonds[bond >>> 6] & (1L << bond)) != 0) return;
+
+        int site = bond / bondsPerSite;
+        int neighbour = lattice.neighbour(site, bond - site * bondsPerSite);
+        if (neighbour < 0) throw new IllegalArgumentException("Id " + bond + " is not a bond of the lattice");
+
+        openBonds[bond >>> 6] |= 1L << bond;
+        numberOfOpenBonds++;
+
+        int rootP = sites.find(site);
+        int rootQ = sites.find(neighbour);
+        if (rootP == rootQ) return;
+
+        byte merged = (byte) (flags[rootP] | flags[rootQ]);
+        flags[sites.union(rootP, rootQ)] = merged;
+
+        if (merged == (TOP | BOTTOM)) percolates = true;
+    }
+
+    // open bonds[from] to bonds[to - 1] until the system percolates and return the index of the bond that made it
+    // percolate, or -1 if it still does not percolate; the system must not percolate already
+    public int openUntilPercolates(int[] bonds, int from, int to) {
+        Objects.checkFromToIndex(from, to, bonds.length);
+        if (percolates) throw new IllegalStateException("The system percolates already");
+
+        for (int i = from; i < to; i++) {
+            open(bonds[i]);
+            if (percolates) return i;
+        }
+        return -1;
+    }
+
+    // is bond open?
+    public boolean isOpen(int bond) {
+        if (bond < 0 || bond >= bondIds()) throw new IllegalArgumentException("Bond has to be between 0 and " + (bondIds() - 1) + ". Your entry is " + bond);
+        return (openBonds[bond >>> 6] & (1L << bond)) != 0;
+    }
+
+    // is site connected to the top layer through open bonds?
+    public boolean isFull(int site) {
+        if (site < 0 || site >= flags.length) throw new IllegalArgumentException("Site has to be between 0 and " + (flags.length - 1) + ". Your entry is " + site);
+        return (flags[sites.find(site)] & TOP) != 0;
+    }
+
+    // number of open bonds
+    public int numberOfOpenBonds() {
+        return numberOfOpenBonds;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // mean bond percolation threshold over trials
+    private static double threshold(Lattice lattice, int trials, SplittableRandom random) {
+        BondPercolation percolation = new BondPercolation(lattice);
+
+        int[] order = new int[percolation.bondIds()];
+        int bonds = 0;
+        for (int id = 0; id < order.length; id++) if (percolation.isBond(id)) order[bonds++] = id;
+        order = Arrays.copyOf(order, bonds);
+
+        double sum = 0;
+        for (int t = 0; t < trials; t++) {
+            percolation.reset();
+            LatticePercolation.shuffle(order, random);
+            percolation.openUntilPercolates(order, 0, bonds);
+            sum += (double) percolation.numberOfOpenBonds() / bonds;
+        }
+        return sum / trials;
+    }
+
+    // test client: estimate the bond percolation threshold of every lattice
+    public static void main(String[] args) {
+
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+        int trials = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+        SplittableRandom random = new SplittableRandom((args.length > 2) ? Long.parseLong(args[2]) : System.nanoTime());
+
+        StdOut.println("square      " + threshold(new SquareLattice(n), trials, random) + " (0.5 expected)");
+        StdOut.println("triangular  " + threshold(new TriangularLattice(n), trials, random) + " (0.3473 expected)");
+        StdOut.println("honeycomb   " + threshold(new HoneycombLattice(n), trials, random) + " (0.6527 expected)");
+        int cube = Math.max(2, (int) Math.cbrt((double) n * n));
+        StdOut.println("cubic       " + threshold(new CubicLattice(cube), trials, random) + " (0.2488 expected)");
+    }
+}
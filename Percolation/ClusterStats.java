@@ -0,0 +1,65 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Cluster-size statistics of a percolation system, kept up to date by the engine as sites open: the number of
+ * clusters of open sites, the size of the largest one and a histogram of cluster sizes. Every update is O(1), and
+ * the engine feeds it the component sizes its union-find already tracks.
+ */
+
+public class ClusterStats {
+
+    private final int[] histogram; // histogram[s] = number of clusters of s open sites
+    private int numberOfClusters;
+    private int largestCluster;
+
+    // statistics for a system of the given number of sites, with no open site yet
+    public ClusterStats(int sites) {
+        histogram = new int[sites + 1];
+    }
+
+    // a site opened without any open neighbour
+    public void opened() {
+        histogram[1]++;
+        numberOfClusters++;
+        if (largestCluster < 1) largestCluster = 1;
+    }
+
+    // two distinct clusters of the given sizes merged
+    public void merged(int size, int otherSize) {
+        histogram[size]--;
+        histogram[otherSize]--;
+        histogram[size + otherSize]++;
+        numberOfClusters--;
+        if (largestCluster < size + otherSize) largestCluster = size + otherSize;
+    }
+
+    // back to no open site, clearing only the part of the histogram in use
+    public void reset() {
+        for (int size = 1; size <= largestCluster; size++) histogram[size] = 0;
+        numberOfClusters = 0;
+        largestCluster = 0;
+    }
+
+    // number of clusters of open sites
+    public int numberOfClusters() {
+        return numberOfClusters;
+    }
+
+    // number of sites in the largest cluster, 0 when no site is open
+    public int largestCluster() {
+        return largestCluster;
+    }
+
+    // number of clusters of exactly size open sites
+    public int clustersOfSize(int size) {
+        if (size < 1 || size >= histogram.length) throw new IllegalArgumentException("Cluster size has to be between 1 and " + (histogram.length - 1));
+        return histogram[size];
+    }
+
+    // copy of the histogram: element s is the number of clusters of s open sites, up to the largest cluster
+    public int[] sizeHistogram() {
+        int[] copy = new int[largestCluster + 1];
+        System.arraycopy(histogram, 0, copy, 0, copy.length);
+        return copy;
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * n-by-n-by-n simple cubic lattice. Site (z, r, c), 0-based, has id (z * n + r) * n + c; the system percolates
+ * along z, from the layer z = 0 to the layer z = n - 1.
+ * Slots: 0 +c, 1 +r, 2 +z (forward); 3 -c, 4 -r, 5 -z.
+ */
+
+public final class CubicLattice implements Lattice {
+
+    private final int side;
+    private final int layer; // sites per layer, n * n
+
+    public CubicLattice(int n) {
+        if (n < 1) throw new IllegalArgumentException("The number has to be positive");
+        if ((long) n * n * n > Integer.MAX_VALUE) throw new IllegalArgumentException("A cube of side " + n + " has too many sites");
+        side = n;
+        layer = n * n;
+    }
+
+    public int sites() { return layer * side; }
+    public int degree() { return 6; }
+    public int bondsPerSite() { return 3; }
+
+    public int neighbour(int site, int slot) {
+        int z = site / layer;
+        int inLayer = site - z * layer;
+        int r = inLayer / side;
+        int c = inLayer - r * side;
+        switch (slot) {
+            case 0: return (c + 1 < side) ? site + 1 : -1;
+            case 1: return (r + 1 < side) ? site + side : -1;
+            case 2: return (z + 1 < side) ? site + layer : -1;
+            case 3: return (c > 0) ? site - 1 : -1;
+            case 4: return (r > 0) ? site - side : -1;
+            case 5: return (z > 0) ? site - layer : -1;
+            default: throw new IllegalArgumentException("Slot has to be between 0 and 5");
+        }
+    }
+
+    public void neighbours(int site, int[] into) {
+        int z = site / layer;
+        int inLayer = site - z * layer;
+        int r = inLayer / side;
+        int c = inLayer - r * side;
+        into[0] = (c + 1 < side) ? site + 1 : -1;
+        into[1] = (r + 1 < side) ? site + side : -1;
+        into[2] = (z + 1 < side) ? site + layer : -1;
+        into[3] = (c > 0) ? site - 1 : -1;
+        into[4] = (r > 0) ? site - side : -1;
+        into[5] = (z > 0) ? site - layer : -1;
+    }
+
+    public boolean isTop(int site) { return site < layer; }
+    public boolean isBottom(int site) { return site >= layer * (side - 1); }
+}
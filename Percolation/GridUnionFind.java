@@ -0,0 +1,93 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Union-find over the sites of a percolation grid, in a single int array: a non-negative entry is the parent of the
+ * element, a negative entry marks a root and holds its rank as ~rank. Union by rank plus path halving keeps the trees
+ * flat, and unionRight / unionDown connect grid neighbours given the row width. reset() puts every element back in
+ * its own set, so one instance can be reused across trials.
+ *
+ * Set sizes, for engines that keep cluster statistics, are counted on request in a second array indexed by root, so
+ * the engines that do not need them keep to the single array.
+ */
+
+import java.util.Arrays;
+
+public class GridUnionFind {
+
+    private final int[] parent; // parent[i] = parent of i, or ~rank when i is a root
+    private final int[] size; // size[i] = number of elements in the set rooted at i, or null when sizes are not counted
+    private final int width; // number of sites per grid row
+
+    // initialize n elements, each in its own set, laid out in rows of width elements
+    public GridUnionFind(int n, int width) {
+        this(n, width, false);
+    }
+
+    // same as above, also counting the size of every set if countSizes is set
+    public GridUnionFind(int n, int width, boolean countSizes) {
+        if (n < 1) throw new IllegalArgumentException("The number of elements has to be positive");
+        if (width < 1) throw new IllegalArgumentException("The row width has to be positive");
+
+        parent = new int[n];
+        size = countSizes ? new int[n] : null;
+        this.width = width;
+        reset();
+    }
+
+    // put every element back in its own set, reusing the arrays
+    public void reset() {
+        Arrays.fill(parent, ~0);
+        if (size != null) Arrays.fill(size, 1);
+    }
+
+    // root of the set containing p, halving the path on the way up
+    public int find(int p) {
+        int q;
+        while ((q = parent[p]) >= 0) {
+            int r = parent[q];
+            if (r < 0) return q;
+            parent[p] = r;
+            p = r;
+        }
+        return p;
+    }
+
+    // are p and q in the same set?
+    public boolean connected(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    // merge the sets containing p and q and return the root of the merged set
+    public int union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) return rootP;
+
+        // ranks are stored complemented, so the larger rank has the smaller entry
+        if (parent[rootP] > parent[rootQ]) {
+            parent[rootP] = rootQ;
+            if (size != null) size[rootQ] += size[rootP];
+            return rootQ;
+        }
+        if (parent[rootP] == parent[rootQ]) parent[rootP]--;
+        parent[rootQ] = rootP;
+        if (size != null) size[rootP] += size[rootQ];
+        return rootP;
+    }
+
+    // number of elements in the set whose root is given; only if sizes are counted
+    public int size(int root) {
+        if (size == null) throw new IllegalStateException("Set sizes are not counted");
+        return size[root];
+    }
+
+    // merge the set of p with the set of its right-hand neighbour
+    public int unionRight(int p) {
+        return union(p, p + 1);
+    }
+
+    // merge the set of p with the set of the element one row below it
+    public int unionDown(int p) {
+        return union(p, p + width);
+    }
+}
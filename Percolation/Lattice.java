@@ -0,0 +1,37 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Neighbour topology of a percolation lattice. Sites are numbered 0 to sites() - 1. Every site has degree() neighbour
+ * slots; a slot without a neighbour (at the border, or missing in the lattice) answers -1. Slots 0 to
+ * bondsPerSite() - 1 are the forward ones: taken over all sites they list every bond exactly once, which is how bond
+ * percolation numbers bonds (bond = site * bondsPerSite() + slot).
+ *
+ * neighbour() works out the coordinates of the site on every call, so engines that visit all the slots of a site
+ * use neighbours() instead: one call per site that works out the coordinates once and fills every slot. The calls
+ * go through the interface; whether the JIT inlines them depends on how many lattices a run has used at the call
+ * site, and LatticeBenchmark in Benchmarks/ measures what is left against the hand-written grid of Percolation.
+ */
+
+public interface Lattice {
+
+    // number of sites
+    int sites();
+
+    // number of neighbour slots per site
+    int degree();
+
+    // number of forward slots per site, see above
+    int bondsPerSite();
+
+    // neighbour of site in the given slot, or -1 when there is none
+    int neighbour(int site, int slot);
+
+    // fill into[0] to into[degree() - 1] with the neighbours of site, slot by slot, -1 where there is none
+    void neighbours(int site, int[] into);
+
+    // is the site in the top layer?
+    boolean isTop(int site);
+
+    // is the site in the bottom layer?
+    boolean isBottom(int site);
+}
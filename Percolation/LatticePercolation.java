@@ -0,0 +1,164 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Site percolation on any Lattice. Same design as RootFlagPercolation - one union-find whose roots carry top and
+ * bottom flags - with the neighbour loop delegated to the lattice. Sites are the 0-based ids of the lattice. The
+ * engine also keeps cluster-size statistics of the open sites (see clusters()).
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+public class LatticePercolation {
+
+    // Status bits. OPEN is kept for every site, TOP and BOTTOM are only meaningful on union-find roots
+    private static final byte OPEN = 1;
+    private static final byte TOP = 2;
+    private static final byte BOTTOM = 4;
+
+    private final Lattice lattice;
+    private final byte[] status; // status bits of every site
+    private final GridUnionFind sites; // counts set sizes for clusters; the row width does not matter
+    private final ClusterStats clusters; // cluster-size statistics, updated on every open
+    private final int[] neighbours; // neighbours of the site being opened, filled by the lattice
+
+    private int numberOfOpenSites;
+    private boolean percolates;
+
+    // all sites of the lattice blocked
+    public LatticePercolation(Lattice lattice) {
+        this.lattice = lattice;
+        status = new byte[lattice.sites()];
+        sites = new GridUnionFind(lattice.sites(), 1, true);
+        clusters = new ClusterStats(lattice.sites());
+        neighbours = new int[lattice.degree()];
+    }
+
+    // block every site again, reusing the arrays
+    public void reset() {
+        Arrays.fill(status, (byte) 0);
+        sites.reset();
+        clusters.reset();
+        numberOfOpenSites = 0;
+        percolates = false;
+    }
+
+    private void validate(int site) {
+        if (site < 0 || site >= status.length) throw new IllegalArgumentException("Site has to be between 0 and " + (status.length - 1) + ". Your entry is " + site);
+    }
+
+    // open site if it is not open already
+    public void open(int site) {
+        validate(site);
+        if (status[site] != 0) return;
+
+        clusters.opened();
+
+        byte flags = OPEN;
+        if (lattice.isTop(site)) flags |= TOP;
+        if (lattice.isBottom(site)) flags |= BOTTOM;
+
+        lattice.neighbours(site, neighbours);
+        for (int neighbour : neighbours) {
+            if (neighbour >= 0 && status[neighbour] != 0) {
+                int root = sites.find(site);
+                int other = sites.find(neighbour);
+                if (root == other) continue;
+
+                clusters.merged(sites.size(root), sites.size(other));
+                flags |= status[other];
+                sites.union(root, other);
+            }
+        }
+
+        // the merged component inherits the flags of every component it swallowed
+        status[site] = OPEN;
+        status[sites.find(site)] |= flags;
+
+        if ((flags & (TOP | BOTTOM)) == (TOP | BOTTOM)) percolates = true;
+
+        numberOfOpenSites++;
+    }
+
+    // open sites[from] to sites[to - 1] until the system percolates and return the index of the site that made it
+    // percolate, or -1 if it still does not percolate; the system must not percolate already
+    public int openUntilPercolates(int[] siteIds, int from, int to) {
+        Objects.checkFromToIndex(from, to, siteIds.length);
+        if (percolates) throw new IllegalStateException("The system percolates already");
+
+        for (int i = from; i < to; i++) {
+            open(siteIds[i]);
+            if (percolates) return i;
+        }
+        return -1;
+    }
+
+    // is site open?
+    public boolean isOpen(int site) {
+        validate(site);
+        return status[site] != 0;
+    }
+
+    // is site full?
+    public boolean isFull(int site) {
+        return isOpen(site) && (status[sites.find(site)] & TOP) != 0;
+    }
+
+    // number of open sites
+    public int numberOfOpenSites() {
+        return numberOfOpenSites;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // live cluster-size statistics of the open sites
+    public ClusterStats clusters() {
+        return clusters;
+    }
+
+    // Fisher-Yates shuffle, shared with BondPercolation's test client
+    static void shuffle(int[] a, SplittableRandom random) {
+        for (int i = a.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = a[i];
+            a[i] = a[j];
+            a[j] = swap;
+        }
+    }
+
+    // mean site percolation threshold over trials
+    private static double threshold(Lattice lattice, int trials, SplittableRandom random) {
+        LatticePercolation percolation = new LatticePercolation(lattice);
+        int[] order = new int[lattice.sites()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+
+        double sum = 0;
+        for (int t = 0; t < trials; t++) {
+            percolation.reset();
+            shuffle(order, random);
+            percolation.openUntilPercolates(order, 0, order.length);
+            sum += (double) percolation.numberOfOpenSites() / order.length;
+        }
+        return sum / trials;
+    }
+
+    // test client: estimate the site percolation threshold of every lattice
+    public static void main(String[] args) {
+
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+        int trials = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+        SplittableRandom random = new SplittableRandom((args.length > 2) ? Long.parseLong(args[2]) : System.nanoTime());
+
+        StdOut.println("square      " + threshold(new SquareLattice(n), trials, random) + " (0.5927 expected)");
+        StdOut.println("triangular  " + threshold(new TriangularLattice(n), trials, random) + " (0.5 expected)");
+        StdOut.println("honeycomb   " + threshold(new HoneycombLattice(n), trials, random) + " (0.6970 expected)");
+        int cube = Math.max(2, (int) Math.cbrt((double) n * n));
+        StdOut.println("cubic       " + threshold(new CubicLattice(cube), trials, random) + " (0.3116 expected)");
+    }
+}
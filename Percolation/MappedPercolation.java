@@ -0,0 +1,392 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Off-heap percolation engine for grids that do not fit the heap. Both the open-site bitset and the union-find
+ * live in a memory-mapped file, mapped in 1 GiB segments, so a 50,000-by-50,000 grid costs page cache rather than
+ * heap. Like RootFlagPercolation it uses a single union-find whose roots carry top and bottom flags, so there are no
+ * virtual sites. Site ids are longs: past n = 46,340 the number of sites no longer fits an int.
+ *
+ * File layout (all values little-endian longs or ints, 8-byte aligned):
+ *   header   - magic, format version, grid side, percolates flag;
+ *   bitset   - one bit per site, set once the site is open;
+ *   parents  - one long per site: p > 0 is the parent site p - 1, p <= 0 marks a root holding -(rank << 2 | flags).
+ * A zero-filled file is therefore an all-blocked grid, and a fresh file is created sparse.
+ *
+ * Opening the same file again resumes the grid where it was left. An open writes the unions first and the open bit
+ * last, and repeating it picks up from whatever part of the unions is already there, so if the process dies the
+ * opens that were in flight can be repeated after resuming. A union writes the merged rank and flags to the root
+ * that survives before it hangs the other root below it, so a union cut short leaves at most extra flags on a root,
+ * which the repeated open merges for real. This relies on the page cache surviving the process;
+ * after an operating system crash the pages may have reached the disk in any order.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+public class MappedPercolation implements PercolationModel, Closeable {
+
+    private static final long MAGIC = 0x50455243_4d415031L; // "PERCMAP1"
+    private static final int VERSION = 1;
+    private static final long HEADER_BYTES = 64;
+    private static final long MAGIC_OFFSET = 0, VERSION_OFFSET = 8, SIDE_OFFSET = 12, PERCOLATES_OFFSET = 16;
+
+    private static final int SEGMENT_SHIFT = 30; // 1 GiB segments; a multiple of 8 so no long straddles two of them
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    // Root flags, stored in the two low bits of a root entry
+    private static final long TOP = 1;
+    private static final long BOTTOM = 2;
+    private static final int RANK_SHIFT = 2;
+
+    private final int gridSide;
+    private final long totalSites;
+    private final long bitsetOffset, parentOffset, fileBytes;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+
+    private long numberOfOpenSites; // recounted from the bitset when resuming
+    private boolean percolates;
+
+    // map (creating it if needed) the file backing an n-by-n grid; an existing file is resumed
+    public MappedPercolation(int n, Path file) throws IOException {
+        if (n < 1) throw new IllegalArgumentException("The number has to be positive");
+
+        gridSide = n;
+        totalSites = (long) n * n;
+        bitsetOffset = HEADER_BYTES;
+        parentOffset = bitsetOffset + ((totalSites + 63) >>> 6) * Long.BYTES;
+        fileBytes = parentOffset + totalSites * Long.BYTES;
+
+        boolean resume = Files.exists(file) && Files.size(file) > 0;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (resume && channel.size() != fileBytes) throw new IOException(file + " does not hold a " + n + "-by-" + n + " grid");
+
+            segments = new MappedByteBuffer[(int) ((fileBytes + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(SEGMENT_MASK + 1, fileBytes - start));
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            if (resume) {
+                if (getLong(MAGIC_OFFSET) != MAGIC || segments[0].getInt((int) VERSION_OFFSET) != VERSION
+                        || segments[0].getInt((int) SIDE_OFFSET) != n) {
+                    throw new IOException(file + " does not hold a " + n + "-by-" + n + " grid");
+                }
+                percolates = getLong(PERCOLATES_OFFSET) != 0;
+                for (long word = 0; word < parentOffset - bitsetOffset; word += Long.BYTES) {
+                    numberOfOpenSites += Long.bitCount(getLong(bitsetOffset + word));
+                }
+            }
+            else {
+                writeHeader();
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void writeHeader() {
+        putLong(MAGIC_OFFSET, MAGIC);
+        segments[0].putInt((int) VERSION_OFFSET, VERSION);
+        segments[0].putInt((int) SIDE_OFFSET, gridSide);
+        putLong(PERCOLATES_OFFSET, 0);
+    }
+
+    private long getLong(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_MASK));
+    }
+
+    private void putLong(long offset, long value) {
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putLong((int) (offset & SEGMENT_MASK), value);
+    }
+
+    private boolean isOpenSite(long site) {
+        return (getLong(bitsetOffset + (site >>> 6) * Long.BYTES) & (1L << site)) != 0;
+    }
+
+    private long entry(long site) {
+        return getLong(parentOffset + site * Long.BYTES);
+    }
+
+    private void setEntry(long site, long value) {
+        putLong(parentOffset + site * Long.BYTES, value);
+    }
+
+    // root of the component containing site, halving the path on the way up
+    private long find(long site) {
+        long p;
+        while ((p = entry(site)) > 0) {
+            long parent = p - 1;
+            long grandParent = entry(parent);
+            if (grandParent <= 0) return parent;
+            setEntry(site, grandParent);
+            site = grandParent - 1;
+        }
+        return site;
+    }
+
+    // merge the components of two roots by rank and return the new root, which keeps the flags of both
+    private long link(long rootP, long rootQ) {
+        if (rootP == rootQ) return rootP;
+
+        // the survivor's entry first and the child pointer last, see the class comment
+        long root = absorb(rootP, rootQ);
+        setEntry((root == rootP) ? rootQ : rootP, root + 1);
+        return root;
+    }
+
+    // first half of link: write the merged rank and flags to the root that survives and return it, leaving the
+    // other root as it is
+    private long absorb(long rootP, long rootQ) {
+        long metaP = -entry(rootP), metaQ = -entry(rootQ);
+        long flags = (metaP | metaQ) & (TOP | BOTTOM);
+        long rankP = metaP >>> RANK_SHIFT, rankQ = metaQ >>> RANK_SHIFT;
+
+        if (rankP < rankQ) {
+            setEntry(rootQ, -((rankQ << RANK_SHIFT) | flags));
+            return rootQ;
+        }
+        if (rankP == rankQ) rankP++;
+        setEntry(rootP, -((rankP << RANK_SHIFT) | flags));
+        return rootP;
+    }
+
+    private void validate(int row, int col) {
+        if (row < 1 || row > gridSide) throw new IllegalArgumentException("Row number has to be between 1 and " + gridSide + " Your entered: " + row);
+        if (col < 1 || col > gridSide) throw new IllegalArgumentException("Column number has to be between 1 and " + gridSide + " Your entered: " + col);
+    }
+
+    // determine 0-based site id, based on the n-by-n grid coordinates
+    private long getSiteId(int row, int col) {
+        return (long) (row - 1) * gridSide + (col - 1);
+    }
+
+    // open site (row, col) if it is not open already
+    public void open(int row, int col) {
+        validate(row, col);
+
+        long thisSite = getSiteId(row, col);
+        if (isOpenSite(thisSite)) return;
+
+        long flags = 0;
+        if (row == 1) flags |= TOP;
+        if (row == gridSide) flags |= BOTTOM;
+
+        // a fresh site is a root of rank 0 with only its own row flags. A site with an entry already was caught half
+        // way through an earlier open: its component may hold other sites by now, so keep it and add the row flags
+        long root;
+        if (entry(thisSite) == 0) {
+            setEntry(thisSite, -flags);
+            root = thisSite;
+        }
+        else {
+            root = find(thisSite);
+            setEntry(root, -(-entry(root) | flags));
+        }
+
+        if (row > 1 && isOpenSite(thisSite - gridSide)) root = link(root, find(thisSite - gridSide));
+        if (row < gridSide && isOpenSite(thisSite + gridSide)) root = link(root, find(thisSite + gridSide));
+        if (col > 1 && isOpenSite(thisSite - 1)) root = link(root, find(thisSite - 1));
+        if (col < gridSide && isOpenSite(thisSite + 1)) root = link(root, find(thisSite + 1));
+
+        if (!percolates && (-entry(root) & (TOP | BOTTOM)) == (TOP | BOTTOM)) {
+            percolates = true;
+            putLong(PERCOLATES_OFFSET, 1);
+        }
+
+        // the open bit goes last, see the class comment
+        long word = bitsetOffset + (thisSite >>> 6) * Long.BYTES;
+        putLong(word, getLong(word) | (1L << thisSite));
+
+        numberOfOpenSites++;
+    }
+
+    // open the sites siteIds[from] to siteIds[to - 1]; int ids only reach grids of up to 46,340-by-46,340
+    public void openAll(int[] siteIds, int from, int to) {
+        Objects.checkFromToIndex(from, to, siteIds.length);
+
+        for (int i = from; i < to; i++) openSiteId(siteIds[i]);
+    }
+
+    // open sites from siteIds until the system percolates and return the index of the site that made it percolate
+    public int openUntilPercolates(int[] siteIds, int from, int to) {
+        Objects.checkFromToIndex(from, to, siteIds.length);
+        if (percolates) throw new IllegalStateException("The system percolates already");
+
+        for (int i = from; i < to; i++) {
+            openSiteId(siteIds[i]);
+            if (percolates) return i;
+        }
+        return -1;
+    }
+
+    // open the site with the given 1-based row-major id
+    private void openSiteId(int siteId) {
+        if (siteId < 1 || siteId > totalSites) throw new IllegalArgumentException("Site id has to be between 1 and " + totalSites + ". Your entry is " + siteId);
+
+        int row = (siteId - 1) / gridSide + 1;
+        open(row, siteId - (row - 1) * gridSide);
+    }
+
+    // is site (row, col) open?
+    public boolean isOpen(int row, int col) {
+        validate(row, col);
+
+        return isOpenSite(getSiteId(row, col));
+    }
+
+    // is site (row, col) full?
+    public boolean isFull(int row, int col) {
+        return isOpen(row, col) && (-entry(find(getSiteId(row, col))) & TOP) != 0;
+    }
+
+    // bitset of the full sites, see PercolationModel
+    public long[] fullMask() {
+        return PercolationModel.fullMask(this, gridSide);
+    }
+
+    // number of open sites; see openSites() for grids with more than Integer.MAX_VALUE sites
+    public int numberOfOpenSites() {
+        return Math.toIntExact(numberOfOpenSites);
+    }
+
+    // number of open sites
+    public long openSites() {
+        return numberOfOpenSites;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // block every site again; this writes the whole file, so it costs as much as a fresh one
+    public void reset() {
+        for (long offset = 0; offset < fileBytes; offset += Long.BYTES) putLong(offset, 0);
+        writeHeader();
+        numberOfOpenSites = 0;
+        percolates = false;
+    }
+
+    // write the mapped pages back to the file
+    public void force() {
+        for (MappedByteBuffer segment : segments) segment.force();
+    }
+
+    // force the grid to the file and close it; the mappings go away once they are garbage collected
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    // an open of (2,2) that dies after writing the entry and the first union, repeated after resuming: (1,2) joined
+    // the component of (2,2) and has to stay full
+    private static void repeatInFlightOpen(Path file) throws IOException {
+        Files.deleteIfExists(file);
+
+        MappedPercolation mapped = new MappedPercolation(3, file);
+        mapped.open(1, 2);
+        long site = mapped.getSiteId(2, 2);
+        mapped.setEntry(site, 0);
+        mapped.link(site, mapped.find(mapped.getSiteId(1, 2)));
+        mapped.close();
+
+        mapped = new MappedPercolation(3, file);
+        try {
+            if (mapped.isOpen(2, 2)) throw new IllegalStateException("A site was open before its open finished");
+            mapped.open(2, 2);
+            if (!mapped.isFull(1, 2) || !mapped.isFull(2, 2)) throw new IllegalStateException("Repeating an open lost the top flag");
+            if (mapped.numberOfOpenSites() != 2) throw new IllegalStateException("numberOfOpenSites() is " + mapped.numberOfOpenSites());
+        }
+        finally {
+            mapped.close();
+        }
+    }
+
+    // an open of (2,2) between (1,2) and (3,2) that dies inside its second union, after the survivor took the
+    // bottom flag of (3,2) but before (3,2) was hung below it: the repeated open has to join the two and percolate
+    private static void repeatOpenCutInsideUnion(Path file) throws IOException {
+        Files.deleteIfExists(file);
+
+        MappedPercolation mapped = new MappedPercolation(3, file);
+        mapped.open(1, 2);
+        mapped.open(3, 2);
+        long site = mapped.getSiteId(2, 2);
+        mapped.setEntry(site, 0);
+        long root = mapped.link(site, mapped.find(mapped.getSiteId(1, 2)));
+        mapped.absorb(root, mapped.find(mapped.getSiteId(3, 2)));
+        mapped.close();
+
+        mapped = new MappedPercolation(3, file);
+        try {
+            if (mapped.percolates()) throw new IllegalStateException("The grid percolated before the open finished");
+            mapped.open(2, 2);
+            if (!mapped.percolates() || !mapped.isFull(3, 2)) throw new IllegalStateException("Repeating an open lost a union");
+        }
+        finally {
+            mapped.close();
+        }
+    }
+
+    // test client: repeat opens cut short, then run a grid against RootFlagPercolation, closing and resuming the
+    // file half way
+    public static void main(String[] args) throws IOException {
+
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 300;
+        Path file = (args.length > 1) ? Path.of(args[1]) : Files.createTempFile("percolation", ".grid");
+        repeatInFlightOpen(file);
+        repeatOpenCutInsideUnion(file);
+        StdOut.println("Opens cut short and repeated after resuming keep their unions");
+        Files.deleteIfExists(file);
+
+        int[] sitesToOpen = new int[n * n];
+        for (int i = 0; i < sitesToOpen.length; i++) sitesToOpen[i] = i;
+        StdRandom.shuffle(sitesToOpen);
+
+        PercolationModel reference = new RootFlagPercolation(n);
+        MappedPercolation mapped = new MappedPercolation(n, file);
+        try {
+            for (int i = 0; i < sitesToOpen.length * 6 / 10; i++) {
+                if (i == sitesToOpen.length / 4) {
+                    mapped.close();
+                    mapped = new MappedPercolation(n, file);
+                }
+
+                int row = sitesToOpen[i] / n + 1;
+                int col = sitesToOpen[i] % n + 1;
+                reference.open(row, col);
+                mapped.open(row, col);
+
+                if (reference.percolates() != mapped.percolates()) throw new IllegalStateException("percolates() differs after opening " + row + "," + col);
+            }
+
+            for (int row = 1; row <= n; row++) {
+                for (int col = 1; col <= n; col++) {
+                    if (reference.isFull(row, col) != mapped.isFull(row, col)) throw new IllegalStateException("isFull(" + row + "," + col + ") differs");
+                }
+            }
+            if (reference.numberOfOpenSites() != mapped.numberOfOpenSites()) throw new IllegalStateException("numberOfOpenSites() differs");
+
+            StdOut.println("Mapped grid of " + n + "-by-" + n + " agrees with RootFlagPercolation, resumed from " + file);
+        }
+        finally {
+            mapped.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
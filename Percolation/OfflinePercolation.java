@@ -0,0 +1,144 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Offline dynamic connectivity for a known schedule of opens and closes: answers percolates() after every operation
+ * in O(m log m log n) for m operations, whatever the order of the closes.
+ *
+ * Every stretch of time during which a site stays open is an interval of operation indices. The intervals are stored
+ * in a segment tree over time, and a depth-first walk of the tree opens the sites of a node on the way down and undoes
+ * them on the way back up, on a RollbackPercolation. At leaf t exactly the sites open after operation t are open.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.Arrays;
+
+public class OfflinePercolation {
+
+    private final int gridSide;
+    private final int leaves; // power of two, at least the number of operations
+    private final boolean[] percolatesAfter; // answer for every operation
+
+    // segment tree nodes, each with a linked list of the sites open during the node's time range
+    private final int[] firstInterval;
+    private int[] nextInterval;
+    private int[] intervalSite;
+    private int intervals;
+
+    // schedule of operations on an n-by-n grid: a positive entry opens the site with that 1-based row-major id,
+    // a negative entry closes site -id. Opening an open site or closing a blocked one does nothing
+    public OfflinePercolation(int n, int[] operations) {
+        if (n < 1) throw new IllegalArgumentException("The number has to be positive");
+
+        gridSide = n;
+        int m = operations.length;
+        percolatesAfter = new boolean[m];
+
+        int size = 1;
+        while (size < Math.max(m, 1)) size <<= 1;
+        leaves = size;
+
+        firstInterval = new int[2 * leaves];
+        Arrays.fill(firstInterval, -1);
+        nextInterval = new int[16];
+        intervalSite = new int[16];
+
+        // turn the schedule into open intervals [openedAt, closedAt)
+        int[] openedAt = new int[n * n];
+        Arrays.fill(openedAt, -1);
+        for (int t = 0; t < m; t++) {
+            int id = operations[t];
+            int site = Math.abs(id) - 1;
+            if (id == 0 || site >= n * n) throw new IllegalArgumentException("Operation " + t + " names no site: " + id);
+
+            if (id > 0 && openedAt[site] < 0) {
+                openedAt[site] = t;
+            }
+            else if (id < 0 && openedAt[site] >= 0) {
+                addInterval(openedAt[site], t, site);
+                openedAt[site] = -1;
+            }
+        }
+        for (int site = 0; site < n * n; site++) {
+            if (openedAt[site] >= 0) addInterval(openedAt[site], m, site);
+        }
+
+        walk(1, 0, leaves, new RollbackPercolation(n));
+    }
+
+    // store the site in the O(log m) nodes covering [from, to)
+    private void addInterval(int from, int to, int site) {
+        for (int lo = from + leaves, hi = to + leaves; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) link(lo++, site);
+            if ((hi & 1) == 1) link(--hi, site);
+        }
+    }
+
+    private void link(int node, int site) {
+        if (intervals == intervalSite.length) {
+            intervalSite = Arrays.copyOf(intervalSite, 2 * intervals);
+            nextInterval = Arrays.copyOf(nextInterval, 2 * intervals);
+        }
+        intervalSite[intervals] = site;
+        nextInterval[intervals] = firstInterval[node];
+        firstInterval[node] = intervals++;
+    }
+
+    // open the sites of node, which covers operations [from, from + width), answer or descend, then undo them;
+    // the depth is log m, and subtrees past the last operation are skipped
+    private void walk(int node, int from, int width, RollbackPercolation grid) {
+        if (from >= percolatesAfter.length) return;
+
+        int opened = 0;
+        for (int i = firstInterval[node]; i >= 0; i = nextInterval[i]) {
+            int site = intervalSite[i];
+            grid.open(site / gridSide + 1, site % gridSide + 1);
+            opened++;
+        }
+
+        if (width == 1) {
+            percolatesAfter[from] = grid.percolates();
+        }
+        else {
+            walk(node << 1, from, width >> 1, grid);
+            walk((node << 1) | 1, from + (width >> 1), width >> 1, grid);
+        }
+
+        for (int i = 0; i < opened; i++) grid.undo();
+    }
+
+    // does the system percolate after operation t?
+    public boolean percolatesAfter(int t) {
+        if (t < 0 || t >= percolatesAfter.length) throw new IllegalArgumentException("Operation has to be between 0 and " + (percolatesAfter.length - 1));
+        return percolatesAfter[t];
+    }
+
+    // test client: a random schedule, checked against RollbackPercolation replaying it online
+    public static void main(String[] args) {
+
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 30;
+        int m = (args.length > 1) ? Integer.parseInt(args[1]) : 20000;
+
+        int[] operations = new int[m];
+        for (int t = 0; t < m; t++) {
+            int id = StdRandom.uniform(n * n) + 1;
+            operations[t] = (StdRandom.uniform(3) > 0) ? id : -id;
+        }
+
+        OfflinePercolation offline = new OfflinePercolation(n, operations);
+
+        RollbackPercolation online = new RollbackPercolation(n);
+        int percolating = 0;
+        for (int t = 0; t < m; t++) {
+            int site = Math.abs(operations[t]) - 1;
+            if (operations[t] > 0) online.open(site / n + 1, site % n + 1);
+            else online.close(site / n + 1, site % n + 1);
+
+            if (online.percolates() != offline.percolatesAfter(t)) throw new IllegalStateException("percolates() differs after operation " + t);
+            if (online.percolates()) percolating++;
+        }
+
+        StdOut.println("Offline answers agree with the online engine over " + m + " operations, " + percolating + " of them percolating");
+    }
+}
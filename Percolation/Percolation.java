@@ -4,15 +4,21 @@
 
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
 
-public class Percolation {
+import java.util.Arrays;
+import java.util.Objects;
+
+public class Percolation implements PercolationModel {
+
+    private static final int TILE_SHIFT = 3; // sites are packed in 8-by-8 tiles, one long per tile
+    private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
 
     private int gridSide; // holds the length of the grid axis
-    private boolean[][] grid; // the grid itself
+    private int tilesPerRow; // number of 8-by-8 tiles covering one row of the grid
+    private long[] openSites; // bitset of open sites, tiled so that the neighbours of a site mostly share its word
 
-    private WeightedQuickUnionUF sites; // WQUF object holding open, connected sites and testing if the system percolates
-    private WeightedQuickUnionUF sitesBackWash; // WQUF object holding open, connected sites and testing if the system percolates
+    private GridUnionFind sites; // WQUF object holding open, connected sites and testing if the system percolates
+    private GridUnionFind sitesBackWash; // WQUF object holding open, connected sites and testing if the system percolates
 
     // Purely for the sake of coherence - variables that hold id's of two extra sites
     private int virtualTop;
@@ -31,91 +37,128 @@ public class Percolation {
         virtualBottom = gridArea + 1; // id of the virtual bottom
         numberOfOpenSites = 0;
 
-        grid = new boolean[gridSide][gridSide]; // initialize n-by-n grid
+        tilesPerRow = (gridSide + TILE_MASK) >>> TILE_SHIFT;
+        openSites = new long[tilesPerRow * tilesPerRow]; // all sites start out blocked
 
         // initialize WQUF object, adding two extra sites - one for top ( 0 ) and bottom (N*N + 1);
-        sites = new WeightedQuickUnionUF(gridArea + 2);
-        sitesBackWash = new WeightedQuickUnionUF(gridArea + 2);
+        sites = new GridUnionFind(gridArea + 2, gridSide);
+        sitesBackWash = new GridUnionFind(gridArea + 2, gridSide);
+    }
 
-        // fill out the grid
-        for (int row = 0; row < gridSide; row++) {
+    // block every site again, reusing the bitset and both union-find arrays
+    public void reset() {
+        Arrays.fill(openSites, 0L);
+        sites.reset();
+        sitesBackWash.reset();
+        numberOfOpenSites = 0;
+    }
 
-            for (int col = 0; col < gridSide; col++) {
+    // determine site id, based on the n-by-n grid coordinates
+    private int getSiteId(int row, int col) {
+        return ((row - 1) * gridSide) + col; // decrement row to account for the 1,1 convention
+    }
 
-                // mark site as blocked
-                grid[row][col] = false;
+    // index of the word holding the 0-based site (r, c)
+    private int tileOf(int r, int c) {
+        return (r >>> TILE_SHIFT) * tilesPerRow + (c >>> TILE_SHIFT);
+    }
 
-            }
+    // bit of the 0-based site (r, c) within its word
+    private static long bitOf(int r, int c) {
+        return 1L << (((r & TILE_MASK) << TILE_SHIFT) | (c & TILE_MASK));
+    }
 
-        }
+    // is the 0-based site (r, c) open? No bounds checks - callers handle the borders explicitly
+    private boolean isOpenSite(int r, int c) {
+        return (openSites[tileOf(r, c)] & bitOf(r, c)) != 0;
     }
 
-    // determine site id, based on the n-by-n grid coordinates
-    private int getSiteId(int row, int col) {
-        return ((row - 1) * gridSide) + col; // decrement row to account for the 1,1 convention
+    private void validate(int row, int col) {
+        if (row < 1 || row > gridSide) throw new IllegalArgumentException("Row number has to be between 1 and " + gridSide + " Your entered: " + row);
+        if (col < 1 || col > gridSide) throw new IllegalArgumentException("Column number has to be between 1 and " + gridSide + " Your entered: " + col);
     }
 
     // open site (row, col) if it is not open already
     public void open(int row, int col) {
-        if (!isOpen(row, col)) {
+        validate(row, col);
 
-            grid[row-1][col-1] = true; // decrement row and col to account for the 1,1 convention
+        openSite(row - 1, col - 1); // decrement row and col to account for the 1,1 convention
+    }
 
-            int thisSite = getSiteId(row, col);
+    // open the sites siteIds[from] to siteIds[to - 1]
+    public void openAll(int[] siteIds, int from, int to) {
+        Objects.checkFromToIndex(from, to, siteIds.length);
 
-            // check if the site above is open and if so - connect
-            try {
-                if (isOpen(row - 1, col)) {
-                    sites.union(getSiteId(row - 1, col), thisSite);
-                    sitesBackWash.union(getSiteId(row - 1, col), thisSite);
-                }
-            } catch (IllegalArgumentException e) {
-                // the site is in the top row - connect it to the virtual top
-                sites.union(virtualTop, thisSite);
-                sitesBackWash.union(virtualTop, thisSite);
-            }
+        for (int i = from; i < to; i++) openSiteId(siteIds[i]);
+    }
 
-            // check if the site below is open and if so - connect
-            try {
-                if (isOpen(row + 1, col)) {
-                    sites.union(getSiteId(row + 1, col), thisSite);
-                    sitesBackWash.union(getSiteId(row + 1, col), thisSite);
-                }
-            } catch (IllegalArgumentException e) {
-                // the site is in the bottom row
-                sites.union(virtualBottom, thisSite);
-            }
+    // open sites from siteIds until the system percolates and return the index of the site that made it percolate
+    public int openUntilPercolates(int[] siteIds, int from, int to) {
+        Objects.checkFromToIndex(from, to, siteIds.length);
+        if (percolates()) throw new IllegalStateException("The system percolates already");
 
-            // check if the site on the right is open and if so - connect
-            try {
-                if (isOpen(row, col+1)) {
-                    sites.union(thisSite, getSiteId(row, col + 1));
-                    sitesBackWash.union(thisSite, getSiteId(row, col + 1));
-                }
-            } catch (IllegalArgumentException e) {
-                // the site is in the rightmost column
-            }
+        for (int i = from; i < to; i++) {
+            openSiteId(siteIds[i]);
+            if (percolates()) return i;
+        }
+        return -1;
+    }
 
-            // check if the site on the left is open and connect if so
-            try {
-                if (isOpen(row, col-1)) {
-                    sites.union(thisSite, getSiteId(row, col-1));
-                    sitesBackWash.union(thisSite, getSiteId(row, col-1));
-                }
-            } catch (IllegalArgumentException e) {
-                // the site is in the leftmost column
-            }
+    // open the site with the given 1-based row-major id
+    private void openSiteId(int siteId) {
+        if (siteId < 1 || siteId > gridSide * gridSide) throw new IllegalArgumentException("Site id has to be between 1 and " + gridSide*gridSide + ". Your entry is " + siteId);
+
+        int r = (siteId - 1) / gridSide;
+        openSite(r, siteId - 1 - r * gridSide);
+    }
 
-            numberOfOpenSites++;
+    // open the 0-based site (r, c) if it is not open already
+    private void openSite(int r, int c) {
+        if (isOpenSite(r, c)) return;
+
+        openSites[tileOf(r, c)] |= bitOf(r, c);
+
+        int thisSite = r * gridSide + c + 1;
+
+        // the site above, or the virtual top for the top row
+        if (r == 0) {
+            sites.union(virtualTop, thisSite);
+            sitesBackWash.union(virtualTop, thisSite);
+        }
+        else if (isOpenSite(r - 1, c)) {
+            sites.unionDown(thisSite - gridSide);
+            sitesBackWash.unionDown(thisSite - gridSide);
+        }
+
+        // the site below, or the virtual bottom for the bottom row (not wired into sitesBackWash to avoid backwash)
+        if (r == gridSide - 1) {
+            sites.union(virtualBottom, thisSite);
+        }
+        else if (isOpenSite(r + 1, c)) {
+            sites.unionDown(thisSite);
+            sitesBackWash.unionDown(thisSite);
+        }
+
+        // the site on the left
+        if (c > 0 && isOpenSite(r, c - 1)) {
+            sites.unionRight(thisSite - 1);
+            sitesBackWash.unionRight(thisSite - 1);
+        }
+
+        // the site on the right
+        if (c < gridSide - 1 && isOpenSite(r, c + 1)) {
+            sites.unionRight(thisSite);
+            sitesBackWash.unionRight(thisSite);
         }
+
+        numberOfOpenSites++;
     }
 
     // is site (row, col) open?
     public boolean isOpen(int row, int col) {
-        if (row < 1 || row > gridSide) throw new IllegalArgumentException("Row number has to be between 1 and " + gridSide + " Your entered: " + row);
-        if (col < 1 || col > gridSide) throw new IllegalArgumentException("Column number has to be between 1 and " + gridSide + " Your entered: " + col);
+        validate(row, col);
 
-        return grid[row-1][col-1];
+        return isOpenSite(row - 1, col - 1);
     }
 
     // is site (row, col) full?
@@ -123,6 +166,87 @@ public class Percolation {
         return isOpen(row, col) && sitesBackWash.connected(getSiteId(row, col), virtualTop);
     }
 
+    // bitset of the full sites, see PercolationModel. The grid is read a row at a time, as plain bitsets untiled from
+    // openSites, and resolved a run of horizontally adjacent open sites at a time, since a run is all full or all
+    // empty: it is full when it touches a full site of the row above, empty when it touches only empty open sites
+    // there, and only a run with no open site above looks up its root in sitesBackWash - once per run, not per site
+    public long[] fullMask() {
+        long[] mask = new long[(gridSide * gridSide + 63) >>> 6];
+        int topRoot = sitesBackWash.find(virtualTop);
+
+        int words = (gridSide + 63) >>> 6;
+        long[] row = new long[words], above = new long[words];
+        long[] full = new long[words], fullAbove = new long[words];
+
+        for (int r = 0; r < gridSide; r++) {
+            untileRow(r, row);
+            Arrays.fill(full, 0L);
+
+            int start = nextBit(row, 0, gridSide, false);
+            while (start < gridSide) {
+                int end = nextBit(row, start, gridSide, true);
+
+                boolean isFull;
+                if (r == 0 || nextBit(fullAbove, start, end, false) < end) isFull = true;
+                else if (nextBit(above, start, end, false) < end) isFull = false;
+                else isFull = sitesBackWash.find(r * gridSide + start + 1) == topRoot;
+
+                if (isFull) {
+                    setBits(full, start, end);
+                    setBits(mask, r * gridSide + start, r * gridSide + end);
+                }
+                start = nextBit(row, end, gridSide, false);
+            }
+
+            long[] swap = above;
+            above = row;
+            row = swap;
+            swap = fullAbove;
+            fullAbove = full;
+            full = swap;
+        }
+        return mask;
+    }
+
+    // first index in [from, to) whose bit is set (or clear, when clear is true), or to if there is none
+    private static int nextBit(long[] bits, int from, int to, boolean clear) {
+        if (from >= to) return to;
+
+        long flip = clear ? -1L : 0L;
+        int index = from >>> 6;
+        long word = (bits[index] ^ flip) & (-1L << from);
+        while (word == 0) {
+            if (++index << 6 >= to) return to;
+            word = bits[index] ^ flip;
+        }
+        return Math.min(to, (index << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    // set the bits in [from, to)
+    private static void setBits(long[] bits, int from, int to) {
+        int first = from >>> 6, last = (to - 1) >>> 6;
+        long firstMask = -1L << from, lastMask = -1L >>> -to;
+        if (first == last) {
+            bits[first] |= firstMask & lastMask;
+            return;
+        }
+        bits[first] |= firstMask;
+        for (int i = first + 1; i < last; i++) bits[i] = -1L;
+        bits[last] |= lastMask;
+    }
+
+    // copy the open bits of 0-based row r into a plain bitset, column c at bit c
+    private void untileRow(int r, long[] into) {
+        Arrays.fill(into, 0L);
+
+        int first = (r >>> TILE_SHIFT) * tilesPerRow;
+        int shift = (r & TILE_MASK) << TILE_SHIFT;
+        for (int t = 0; t < tilesPerRow; t++) {
+            long columns = (openSites[first + t] >>> shift) & 0xffL;
+            into[t >>> 3] |= columns << ((t & 7) << 3);
+        }
+    }
+
     // number of open sites
     public int numberOfOpenSites() {
         return numberOfOpenSites;
@@ -136,7 +260,7 @@ public class Percolation {
     private void printGrid() {
         for (int i = 0; i < gridSide; i++) {
             for (int j = 0; j < gridSide; j++) {
-                StdOut.print(" " + grid[i][j]);
+                StdOut.print(" " + isOpenSite(i, j));
             }
             StdOut.println("");
         }
@@ -0,0 +1,206 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Checkpoint of a seeded PercolationStats run. Block b of a seeded run always draws from the same random stream
+ * (PercolationTrials.blockSeed), so the random state of a run is fully described by its seed and the next block to
+ * fold; together with the RunningStats of the blocks folded so far, that is all a restart needs to carry on exactly
+ * where the run stopped, with the same final bits as an uninterrupted run.
+ *
+ * The file is a few dozen bytes: magic, version, the parameters of the run and the save interval, the next block, a
+ * finished flag, the accumulator and a CRC32. Version 1 files, which have no interval, resume with the default one. It is written to a temporary file, forced to disk, then moved over the old checkpoint, so
+ * a crash leaves either the previous checkpoint or the new one.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class PercolationCheckpoint {
+
+    private static final int MAGIC = 0x50434b50; // "PCKP"
+    private static final int VERSION = 2;
+    private static final long DEFAULT_INTERVAL_MILLIS = 60_000;
+
+    private final Path file;
+    private final int gridSide;
+    private final int maxTrials;
+    private final String engineName;
+    private final long seed;
+    private final double tolerance;
+
+    private int nextBlock;
+    private boolean finished;
+    private RunningStats results;
+    private long intervalMillis = DEFAULT_INTERVAL_MILLIS;
+
+    private PercolationCheckpoint(Path file, int n, int maxTrials, String engineName, long seed, double tolerance) {
+        this.file = file;
+        this.gridSide = n;
+        this.maxTrials = maxTrials;
+        this.engineName = engineName;
+        this.seed = seed;
+        this.tolerance = tolerance;
+        this.results = new RunningStats();
+    }
+
+    // checkpoint of a new run; nothing is written until the first save
+    public static PercolationCheckpoint start(Path file, int n, int maxTrials, String engineName, long seed, double tolerance) {
+        if (n < 1 || maxTrials < 1) throw new IllegalArgumentException("Grid side and number of trials have to be positive");
+        if (!(tolerance >= 0)) throw new IllegalArgumentException("Tolerance can not be negative");
+        PercolationStats.engine(engineName); // fail early on an unknown engine
+
+        return new PercolationCheckpoint(file, n, maxTrials, engineName, seed, tolerance);
+    }
+
+    // read the checkpoint of an interrupted run
+    public static PercolationCheckpoint resume(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < Long.BYTES) throw new IOException(file + " is not a percolation checkpoint");
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - Long.BYTES);
+        if (crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong()) throw new IOException(file + " is corrupt");
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) throw new IOException(file + " is not a percolation checkpoint");
+        int version = in.readInt();
+        if (version < 1 || version > VERSION) throw new IOException(file + " has unknown checkpoint version " + version);
+
+        PercolationCheckpoint checkpoint = new PercolationCheckpoint(file, in.readInt(), in.readInt(), in.readUTF(), in.readLong(), in.readDouble());
+        if (version >= 2) checkpoint.intervalMillis = in.readLong();
+        checkpoint.nextBlock = in.readInt();
+        checkpoint.finished = in.readBoolean();
+        checkpoint.results = RunningStats.readFrom(in);
+        return checkpoint;
+    }
+
+    // record the progress of the run and write it out atomically
+    public void save(int nextBlock, RunningStats results, boolean finished) throws IOException {
+        this.nextBlock = nextBlock;
+        this.results = results;
+        this.finished = finished;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(gridSide);
+        out.writeInt(maxTrials);
+        out.writeUTF(engineName);
+        out.writeLong(seed);
+        out.writeDouble(tolerance);
+        out.writeLong(intervalMillis);
+        out.writeInt(nextBlock);
+        out.writeBoolean(finished);
+        results.writeTo(out);
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        out.flush();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // throw an IllegalArgumentException naming the differences if this checkpoint is of a run with other parameters
+    public void requireSameRun(int n, int maxTrials, String engineName, long seed, double tolerance) {
+        StringBuilder differences = new StringBuilder();
+        if (n != gridSide) differences.append(", n ").append(gridSide).append(" not ").append(n);
+        if (maxTrials != this.maxTrials) differences.append(", trials ").append(this.maxTrials).append(" not ").append(maxTrials);
+        if (!engineName.equals(this.engineName)) differences.append(", engine ").append(this.engineName).append(" not ").append(engineName);
+        if (seed != this.seed) differences.append(", seed ").append(this.seed).append(" not ").append(seed);
+        if (Double.compare(tolerance, this.tolerance) != 0) differences.append(", tolerance ").append(this.tolerance).append(" not ").append(tolerance);
+
+        if (differences.length() > 0) {
+            throw new IllegalArgumentException(file + " holds a different run (" + differences.substring(2) + "); use resume to continue it or another file");
+        }
+    }
+
+    // how often a running PercolationStats saves this checkpoint; stored with the checkpoint
+    public void setInterval(long millis) {
+        if (millis < 0) throw new IllegalArgumentException("Interval can not be negative");
+        intervalMillis = millis;
+    }
+
+    public long intervalMillis() { return intervalMillis; }
+    public int gridSide() { return gridSide; }
+    public int maxTrials() { return maxTrials; }
+    public String engineName() { return engineName; }
+    public long seed() { return seed; }
+    public double tolerance() { return tolerance; }
+    public int nextBlock() { return nextBlock; }
+    public boolean finished() { return finished; }
+
+    // copy of the statistics of the blocks folded so far
+    public RunningStats results() {
+        RunningStats copy = new RunningStats();
+        copy.merge(results);
+        return copy;
+    }
+
+    // test client: a checkpointed run in a child JVM is killed part way, resumed here, and compared with an
+    // uninterrupted run
+    public static void main(String[] args) throws Exception {
+
+        int gridSide = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+        int numberOfTrials = (args.length > 1) ? Integer.parseInt(args[1]) : 5000;
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : 42;
+
+        Path file = Files.createTempFile("percolation", ".checkpoint");
+        Files.delete(file);
+        try {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "PercolationStats",
+                    "checkpoint", file.toString(), Integer.toString(gridSide), Integer.toString(numberOfTrials), "flags",
+                    "2", Long.toString(seed), "0", "200").inheritIO().start();
+
+            while (!Files.exists(file) && child.isAlive()) Thread.sleep(50);
+            Thread.sleep(500);
+            child.destroyForcibly().waitFor();
+
+            PercolationCheckpoint checkpoint = PercolationCheckpoint.resume(file);
+            StdOut.println("killed after " + checkpoint.results().count() + " trials, resuming");
+            if (checkpoint.intervalMillis() != 200) throw new IllegalStateException("Interval " + checkpoint.intervalMillis() + " not restored");
+            checkpoint.requireSameRun(gridSide, numberOfTrials, "flags", seed, 0.0);
+            try {
+                checkpoint.requireSameRun(gridSide + 1, numberOfTrials, "flags", seed, 0.0);
+                throw new IllegalStateException("A checkpoint of another grid was accepted");
+            }
+            catch (IllegalArgumentException e) {
+                StdOut.println(e.getMessage());
+            }
+
+            PercolationStats resumed = new PercolationStats(checkpoint, 2);
+            PercolationStats uninterrupted = new PercolationStats(gridSide, numberOfTrials, RootFlagPercolation::new, seed, 2, 0.0);
+
+            boolean identical = Double.doubleToLongBits(resumed.mean()) == Double.doubleToLongBits(uninterrupted.mean())
+                    && Double.doubleToLongBits(resumed.stddev()) == Double.doubleToLongBits(uninterrupted.stddev())
+                    && resumed.trialsPerformed() == uninterrupted.trialsPerformed();
+
+            StdOut.println("resumed        mean " + resumed.mean() + " stddev " + resumed.stddev() + " trials " + resumed.trialsPerformed());
+            StdOut.println("uninterrupted  mean " + uninterrupted.mean() + " stddev " + uninterrupted.stddev() + " trials " + uninterrupted.trialsPerformed());
+            StdOut.println("bit-identical: " + identical);
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Coordinator of a distributed PercolationStats run. Worker JVMs (PercolationWorker) connect over TCP; every
+ * connection is handed one block of trials at a time and answers with the block's RunningStats. The coordinator folds
+ * the blocks strictly in block order and stops on the same tolerance rule as the in-process runner, so with the same
+ * seed the result is bit-identical to new PercolationStats(n, trials, engine, seed, threads, tolerance).
+ *
+ * A block whose connection fails or times out goes back to the queue and is handed to another connection. With no
+ * connection left, run() waits for workers to (re)connect - PercolationWorker retries with backoff - and gives up
+ * with an IOException once no worker has been connected for the idle timeout.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class PercolationCoordinator implements Closeable {
+
+    private static final int DEFAULT_WORKER_TIMEOUT_MILLIS = 30 * 60 * 1000; // longest wait for one block
+    private static final int DEFAULT_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000; // longest wait with no worker connected
+    private static final int NONE = -1; // no block in flight on a connection
+
+    private final int gridSide;
+    private final int maxTrials;
+    private final String engineName;
+    private final long seed;
+    private final double tolerance;
+    private final ServerSocket server;
+
+    private final PriorityBlockingQueue<Integer> pending = new PriorityBlockingQueue<>(); // lowest block first
+    private final RunningStats[] finished; // blocks back from the workers, not folded yet; guarded by this
+    private final List<Process> localWorkers = new ArrayList<>();
+    private int workerTimeoutMillis = DEFAULT_WORKER_TIMEOUT_MILLIS;
+    private int idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+    private int connections; // worker connections being served; guarded by this
+    private long idleSince; // System.nanoTime() when connections last dropped to 0; guarded by this
+    private volatile boolean done;
+
+    // listen on port (0 picks a free one) for the workers of a run of at most maxTrials trials
+    public PercolationCoordinator(int n, int maxTrials, String engineName, long seed, double tolerance, int port) throws IOException {
+        if (n < 1 || maxTrials < 1) throw new IllegalArgumentException("Grid side and number of trials have to be positive");
+        if (!(tolerance >= 0)) throw new IllegalArgumentException("Tolerance can not be negative");
+
+        this.gridSide = n;
+        this.maxTrials = maxTrials;
+        this.engineName = engineName;
+        this.seed = seed;
+        this.tolerance = tolerance;
+
+        int numberOfBlocks = PercolationTrials.numberOfBlocks(maxTrials);
+        finished = new RunningStats[numberOfBlocks];
+        for (int block = 0; block < numberOfBlocks; block++) pending.add(block);
+
+        server = new ServerSocket(port);
+    }
+
+    // port the workers connect to
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    // longest time a worker may take to answer one block before its block is handed to someone else
+    public void setWorkerTimeout(int millis) {
+        if (millis < 1) throw new IllegalArgumentException("Timeout has to be positive");
+        workerTimeoutMillis = millis;
+    }
+
+    // longest time run() waits with no worker connected before it gives up on the run
+    public void setIdleTimeout(int millis) {
+        if (millis < 1) throw new IllegalArgumentException("Timeout has to be positive");
+        idleTimeoutMillis = millis;
+    }
+
+    // start worker JVMs on this host, on the classpath of this one
+    public List<Process> startLocalWorkers(int workers) throws IOException {
+        List<Process> started = new ArrayList<>();
+        for (int i = 0; i < workers; i++) started.add(startWorker(port()));
+        localWorkers.addAll(started);
+        return started;
+    }
+
+    // start one single-threaded worker JVM on this host for the coordinator on the given port
+    private static Process startWorker(int port) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "PercolationWorker", "localhost", Integer.toString(port), "1").inheritIO().start();
+    }
+
+    // run until every block is folded in or the tolerance is reached, and return the statistics of the run; throws
+    // an IOException if no worker is connected for the idle timeout
+    public RunningStats run() throws InterruptedException, IOException {
+        synchronized (this) {
+            idleSince = System.nanoTime();
+        }
+        Thread acceptor = new Thread(this::acceptWorkers, "percolation-coordinator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        RunningStats results = new RunningStats();
+        try {
+            for (int block = 0; block < finished.length; block++) {
+                results.merge(await(block));
+                if (PercolationStats.toleranceReached(results, tolerance)) break;
+            }
+        }
+        finally {
+            done = true;
+        }
+        return results;
+    }
+
+    private synchronized RunningStats await(int block) throws InterruptedException, IOException {
+        while (finished[block] == null) {
+            if (connections > 0) {
+                wait();
+                continue;
+            }
+            long idleMillis = (System.nanoTime() - idleSince) / 1_000_000;
+            if (idleMillis >= idleTimeoutMillis) {
+                throw new IOException("No worker connected for " + idleMillis + " ms, giving up with block " + block + " unfinished");
+            }
+            wait(idleTimeoutMillis - idleMillis);
+        }
+
+        RunningStats results = finished[block];
+        finished[block] = null;
+        return results;
+    }
+
+    private synchronized void deliver(int block, RunningStats results) {
+        finished[block] = results;
+        notifyAll();
+    }
+
+    private synchronized void connected() {
+        connections++;
+    }
+
+    private synchronized void disconnected() {
+        if (--connections == 0) idleSince = System.nanoTime();
+        notifyAll();
+    }
+
+    private void acceptWorkers() {
+        int connections = 0;
+        while (!done) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> serve(socket), "percolation-connection-" + connections++);
+                handler.setDaemon(true);
+                handler.start();
+            }
+            catch (IOException e) {
+                if (!done) StdOut.println("Accepting workers failed: " + e);
+                return;
+            }
+        }
+    }
+
+    // hand blocks to one worker connection until the run is over; a failed block goes back to the queue
+    private void serve(Socket socket) {
+        int block = NONE;
+        connected();
+        try (Socket connection = socket) {
+            connection.setTcpNoDelay(true);
+            connection.setSoTimeout(workerTimeoutMillis);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+
+            out.writeInt(PercolationWorker.MAGIC);
+            out.writeInt(PercolationWorker.PROTOCOL_VERSION);
+            out.writeInt(gridSide);
+            out.writeUTF(engineName);
+            out.writeLong(seed);
+            out.writeInt(maxTrials);
+            out.flush();
+
+            while (!done) {
+                Integer next = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (next == null) continue;
+                block = next;
+
+                out.writeInt(block);
+                out.flush();
+                if (in.readInt() != block) throw new IOException("Worker answered for the wrong block");
+                deliver(block, RunningStats.readFrom(in));
+                block = NONE;
+            }
+
+            out.writeInt(PercolationWorker.NO_MORE_BLOCKS);
+            out.flush();
+        }
+        catch (IOException | InterruptedException e) {
+            if (block != NONE) {
+                pending.add(block);
+                if (!done) StdOut.println("Worker " + socket.getRemoteSocketAddress() + " failed (" + e + "), re-issuing block " + block);
+            }
+        }
+        finally {
+            disconnected();
+        }
+    }
+
+    // stop listening and stop the local workers still running
+    public void close() throws IOException {
+        done = true;
+        server.close();
+        for (Process process : localWorkers) process.destroy();
+    }
+
+    // test client: a run on local worker JVMs, one of which is killed, against the same run in process; then a run
+    // without workers, which has to give up after the idle timeout, and one whose worker starts before it listens
+    //   PercolationCoordinator n trials seed workers
+    public static void main(String[] args) throws Exception {
+
+        int gridSide = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+        int numberOfTrials = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : 42;
+        int workers = (args.length > 3) ? Integer.parseInt(args[3]) : 3;
+
+        RunningStats results;
+        try (PercolationCoordinator coordinator = new PercolationCoordinator(gridSide, numberOfTrials, "flags", seed, 0.0, 0)) {
+            List<Process> started = coordinator.startLocalWorkers(workers);
+
+            // kill one worker once the run is under way, its block has to be re-issued
+            Thread killer = new Thread(() -> {
+                try {
+                    Thread.sleep(1500);
+                    started.get(0).destroyForcibly();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            killer.setDaemon(true);
+            killer.start();
+
+            results = coordinator.run();
+        }
+
+        PercolationStats distributed = new PercolationStats(results);
+        PercolationStats local = new PercolationStats(gridSide, numberOfTrials, RootFlagPercolation::new, seed, 2, 0.0);
+
+        boolean identical = Double.doubleToLongBits(distributed.mean()) == Double.doubleToLongBits(local.mean())
+                && Double.doubleToLongBits(distributed.stddev()) == Double.doubleToLongBits(local.stddev())
+                && distributed.trialsPerformed() == local.trialsPerformed();
+
+        StdOut.println("distributed mean " + distributed.mean() + " stddev " + distributed.stddev() + " trials " + distributed.trialsPerformed());
+        StdOut.println("in-process  mean " + local.mean() + " stddev " + local.stddev() + " trials " + local.trialsPerformed());
+        StdOut.println("bit-identical: " + identical);
+
+        try (PercolationCoordinator coordinator = new PercolationCoordinator(gridSide, numberOfTrials, "flags", seed, 0.0, 0)) {
+            coordinator.setIdleTimeout(500);
+            coordinator.run();
+            throw new IllegalStateException("A run without workers finished");
+        }
+        catch (IOException e) {
+            StdOut.println("Run without workers gave up: " + e.getMessage());
+        }
+
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        Process early = startWorker(port);
+        try {
+            Thread.sleep(1500); // the worker finds nobody listening and backs off
+            try (PercolationCoordinator coordinator = new PercolationCoordinator(gridSide, numberOfTrials, "flags", seed, 0.0, port)) {
+                coordinator.setIdleTimeout(30 * 1000);
+                RunningStats late = coordinator.run();
+                if (late.count() != local.trialsPerformed()) throw new IllegalStateException("Run with a retrying worker did " + late.count() + " trials");
+            }
+            StdOut.println("A worker started before its coordinator connected once it was listening");
+        }
+        finally {
+            early.destroy();
+        }
+    }
+}
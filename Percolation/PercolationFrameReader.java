@@ -0,0 +1,71 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Decodes the frame stream written by PercolationFrameWriter, handing each opened and filled site id to callbacks,
+ * so a renderer can paint just the changed pixels of every frame.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.IntConsumer;
+
+public class PercolationFrameReader implements Closeable {
+
+    private final DataInputStream in;
+    private final int gridSide;
+    private boolean finished;
+
+    public PercolationFrameReader(InputStream stream) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        if (in.readInt() != PercolationFrameWriter.MAGIC || in.readInt() != PercolationFrameWriter.VERSION) {
+            throw new IOException("Not a percolation frame stream");
+        }
+        gridSide = in.readInt();
+    }
+
+    // length of the grid axis
+    public int gridSide() {
+        return gridSide;
+    }
+
+    // read one frame, passing its opened and then its filled site ids (1-based, row-major, ascending) to the
+    // callbacks; false once the stream has ended
+    public boolean nextFrame(IntConsumer opened, IntConsumer filled) throws IOException {
+        if (finished) return false;
+
+        int count = readVarint();
+        if (count == 0) {
+            finished = true;
+            return false;
+        }
+        readIds(count, opened);
+        readIds(readVarint(), filled);
+        return true;
+    }
+
+    private void readIds(int count, IntConsumer action) throws IOException {
+        int id = 0;
+        for (int i = 0; i < count; i++) {
+            id += readVarint();
+            action.accept(id);
+        }
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new EOFException("Malformed varint in frame stream");
+    }
+
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Streams a percolation run as animation frames. A frame holds only what changed since the previous one: the sites
+ * opened during the step and the sites that became full, each as a sorted list of 1-based row-major ids written as
+ * varint gaps. A 4000-by-4000 run is then a few bytes per opened site instead of an n*n dump per frame.
+ *
+ * The writer tracks fullness itself. Full sites only ever become full, and only through a newly opened site: when a
+ * site opens on the top row or next to a full site, a flood fill from it over open, not yet full sites finds exactly
+ * the sites that filled, so every site is filled once and the whole run costs O(n*n).
+ *
+ * Stream: magic, version, n, then per frame the number of opened sites, their gaps, the number of filled sites and
+ * their gaps; a frame with no opened sites ends the stream. PercolationFrameReader decodes it.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class PercolationFrameWriter implements Closeable {
+
+    static final int MAGIC = 0x5046524d; // "PFRM"
+    static final int VERSION = 1;
+
+    private final int gridSide;
+    private final long[] openSites; // row-major bitsets over 0-based site ids
+    private final long[] fullSites;
+    private final DataOutputStream out;
+
+    private int[] opened = new int[16]; // ids opened during the current frame
+    private int openedCount;
+    private int[] filled = new int[16]; // ids filled during the current frame
+    private int filledCount;
+    private int[] stack = new int[16]; // flood fill work list
+
+    private long frames;
+
+    public PercolationFrameWriter(OutputStream stream, int n) throws IOException {
+        if (n < 1) throw new IllegalArgumentException("The number has to be positive");
+
+        gridSide = n;
+        int words = (int) (((long) n * n + 63) >>> 6);
+        openSites = new long[words];
+        fullSites = new long[words];
+
+        out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(n);
+    }
+
+    private boolean isOpenSite(int site) {
+        return (openSites[site >>> 6] & (1L << site)) != 0;
+    }
+
+    private boolean isFullSite(int site) {
+        return (fullSites[site >>> 6] & (1L << site)) != 0;
+    }
+
+    // open site (row, col) in the current frame
+    public void open(int row, int col) {
+        if (row < 1 || row > gridSide || col < 1 || col > gridSide) throw new IllegalArgumentException("Row and column indices have to be between 1 and " + gridSide + ". Your entry is " + row + "," + col);
+
+        open((row - 1) * gridSide + col);
+    }
+
+    // open the site with the given 1-based row-major id in the current frame
+    public void open(int siteId) {
+        if (siteId < 1 || siteId > gridSide * gridSide) throw new IllegalArgumentException("Site id has to be between 1 and " + gridSide*gridSide + ". Your entry is " + siteId);
+
+        int site = siteId - 1;
+        if (isOpenSite(site)) return;
+
+        openSites[site >>> 6] |= 1L << site;
+        if (openedCount == opened.length) opened = Arrays.copyOf(opened, 2 * openedCount);
+        opened[openedCount++] = siteId;
+
+        int r = site / gridSide;
+        int c = site - r * gridSide;
+        boolean touchesFull = r == 0
+                || isFullSite(site - gridSide)
+                || (r < gridSide - 1 && isFullSite(site + gridSide))
+                || (c > 0 && isFullSite(site - 1))
+                || (c < gridSide - 1 && isFullSite(site + 1));
+        if (touchesFull) fill(site);
+    }
+
+    // flood fill from a site that just became full over the open sites that are not full yet
+    private void fill(int start) {
+        int top = 0;
+        fullSites[start >>> 6] |= 1L << start;
+        stack[top++] = start;
+
+        while (top > 0) {
+            int site = stack[--top];
+            if (filledCount == filled.length) filled = Arrays.copyOf(filled, 2 * filledCount);
+            filled[filledCount++] = site + 1;
+
+            int r = site / gridSide;
+            int c = site - r * gridSide;
+            if (r > 0) top = push(site - gridSide, top);
+            if (r < gridSide - 1) top = push(site + gridSide, top);
+            if (c > 0) top = push(site - 1, top);
+            if (c < gridSide - 1) top = push(site + 1, top);
+        }
+    }
+
+    private int push(int site, int top) {
+        if (!isOpenSite(site) || isFullSite(site)) return top;
+
+        fullSites[site >>> 6] |= 1L << site;
+        if (top == stack.length) stack = Arrays.copyOf(stack, 2 * top);
+        stack[top] = site;
+        return top + 1;
+    }
+
+    // write the sites opened and filled since the last frame; a step that opened nothing writes no frame, as an
+    // empty frame marks the end of the stream
+    public void endFrame() throws IOException {
+        if (openedCount == 0) return;
+
+        writeIds(opened, openedCount);
+        writeIds(filled, filledCount);
+        openedCount = 0;
+        filledCount = 0;
+        frames++;
+    }
+
+    private void writeIds(int[] ids, int count) throws IOException {
+        Arrays.sort(ids, 0, count);
+        writeVarint(count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarint(ids[i] - previous);
+            previous = ids[i];
+        }
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    // number of frames written so far
+    public long frames() {
+        return frames;
+    }
+
+    // write the pending frame and the end marker
+    public void close() throws IOException {
+        endFrame();
+        writeVarint(0);
+        out.close();
+    }
+
+    // test client: stream a random run, replay the file and check the replayed grid against Percolation
+    public static void main(String[] args) throws IOException {
+
+        int gridSide = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+        int sitesPerFrame = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : 42;
+
+        int totalSites = gridSide * gridSide;
+        int[] sitesToOpen = new int[totalSites];
+        for (int i = 0; i < totalSites; i++) sitesToOpen[i] = i + 1;
+        LatticePercolation.shuffle(sitesToOpen, new SplittableRandom(seed));
+
+        Path file = Files.createTempFile("percolation", ".frames");
+        try {
+            Percolation percolation = new Percolation(gridSide);
+            long start = System.nanoTime();
+            PercolationFrameWriter writer = new PercolationFrameWriter(Files.newOutputStream(file), gridSide);
+            for (int i = 0; i < totalSites && !percolation.percolates(); i++) {
+                writer.open(sitesToOpen[i]);
+                percolation.openAll(sitesToOpen, i, i + 1);
+                if ((i + 1) % sitesPerFrame == 0) writer.endFrame();
+            }
+            writer.close();
+            long frames = writer.frames();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long bytes = Files.size(file);
+            StdOut.printf("%d frames, %d bytes (%.2f bytes per opened site), %.2f s%n", frames, bytes, (double) bytes / percolation.numberOfOpenSites(), seconds);
+
+            boolean[] open = new boolean[totalSites + 1];
+            boolean[] full = new boolean[totalSites + 1];
+            try (PercolationFrameReader reader = new PercolationFrameReader(Files.newInputStream(file))) {
+                while (reader.nextFrame(id -> open[id] = true, id -> full[id] = true)) { }
+            }
+
+            int mismatches = 0;
+            for (int row = 1; row <= gridSide; row++) {
+                for (int col = 1; col <= gridSide; col++) {
+                    int id = (row - 1) * gridSide + col;
+                    if (open[id] != percolation.isOpen(row, col) || full[id] != percolation.isFull(row, col)) mismatches++;
+                }
+            }
+            StdOut.println("replay mismatches: " + mismatches);
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Common API of the percolation engines, so that PercolationStats can run its trials against any of them.
+ * Rows and columns follow the 1-based convention of the assignment. The batch operations take site ids, numbered
+ * 1 to n*n in row-major order: site (row, col) has id (row - 1) * n + col.
+ *
+ * fullMask() returns the full sites as a row-major bitset: bit i of the mask (word i / 64, bit i % 64) is site id i + 1.
+ */
+
+public interface PercolationModel {
+
+    // open site (row, col) if it is not open already
+    void open(int row, int col);
+
+    // open the sites siteIds[from] to siteIds[to - 1]
+    void openAll(int[] siteIds, int from, int to);
+
+    // open the sites siteIds[from] to siteIds[to - 1] until the system percolates and return the index of the site
+    // that made it percolate, or -1 if it still does not percolate; the system must not percolate already
+    int openUntilPercolates(int[] siteIds, int from, int to);
+
+    // is site (row, col) open?
+    boolean isOpen(int row, int col);
+
+    // is site (row, col) full?
+    boolean isFull(int row, int col);
+
+    // number of open sites
+    int numberOfOpenSites();
+
+    // does the system percolate?
+    boolean percolates();
+
+    // block every site again, reusing the allocated storage
+    void reset();
+
+    // bitset of the full sites, in one pass over the grid
+    long[] fullMask();
+
+    // full-site bitset of any n-by-n engine through its queries. Neighbouring open sites are in the same component,
+    // so an open site whose left or upper neighbour is open shares that neighbour's fullness, and isFull is only
+    // asked for open sites with neither
+    static long[] fullMask(PercolationModel model, int n) {
+        long[] mask = new long[Math.toIntExact(((long) n * n + 63) >>> 6)];
+
+        long site = 0;
+        for (int row = 1; row <= n; row++) {
+            for (int col = 1; col <= n; col++, site++) {
+                if (!model.isOpen(row, col)) continue;
+
+                boolean full;
+                if (col > 1 && model.isOpen(row, col - 1)) full = isSet(mask, site - 1);
+                else if (row > 1 && model.isOpen(row - 1, col)) full = isSet(mask, site - n);
+                else full = model.isFull(row, col);
+
+                if (full) mask[(int) (site >>> 6)] |= 1L << site;
+            }
+        }
+        return mask;
+    }
+
+    private static boolean isSet(long[] mask, long bit) {
+        return (mask[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+}
@@ -4,27 +4,42 @@
 
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.StdStats;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
 
 public class PercolationStats {
 
+    private static final double CONFIDENCE_LEVEL = 1.96;
+    private static final int MIN_STREAMING_TRIALS = 30; // below this the confidence interval is too rough to stop on
+    private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 4;
+
     private int totalSites; // Total number of sites
-    private int gridSide;
     private double mean;
     private double stdDev;
     private double confidenceLo;
     private double confidenceHi;
+    private int trialsPerformed;
 
     // perform trials independent experiments on an n-by-n grid
     public PercolationStats(int n, int trials) {
+        this(n, trials, Percolation::new);
+    }
+
+    // perform trials independent experiments on an n-by-n grid, using the percolation engine built by the given factory
+    public PercolationStats(int n, int trials, IntFunction<PercolationModel> engine) {
 
         if (n < 1 || trials < 1) throw new IllegalArgumentException("Grid side and number of trials have to be positive");
 
-        double[] percolationResults = new double[trials]; // array that holds the number of open sites when the system percolates for each trial
+        RunningStats percolationResults = new RunningStats(); // fraction of open sites when the system percolates, over all trials
 
-        double confidenceLevel = 1.96;
-        gridSide = n;
-        totalSites = gridSide*gridSide;
+        totalSites = n*n;
         int[] sitesToOpen = new int[totalSites]; // array holding sequence of sites to open, shuffled prior to each test run
 
         // fill out the sitesToOpen array
@@ -32,56 +47,144 @@ public class PercolationStats {
             sitesToOpen[i] = i+1;
         }
 
+        // initialize percolation object, reset before every trial but the first
+        PercolationModel testSubject = engine.apply(n);
+
         // run trials
         for (int i = 0; i < trials; i++) {
 
-            // initialize percolation object
-            Percolation testSubject = new Percolation(n);
+            if (i > 0) testSubject.reset();
 
             // shuffle the sequence of sites to open
             StdRandom.shuffle(sitesToOpen);
 
-            // begin traversing though the shuffled array until the system percolates
-            int arrayIndex = 0;
+            // open sites in the shuffled order until the system percolates
+            testSubject.openUntilPercolates(sitesToOpen, 0, totalSites);
+
+            double openSites = testSubject.numberOfOpenSites();
+            percolationResults.add(openSites/totalSites);
+        }
+
+        summarize(percolationResults);
+    }
 
-            do {
-                int currentSite = sitesToOpen[arrayIndex];
-                int[] coordinates = getCoordinates(currentSite);
+    // perform trials independent experiments on an n-by-n grid in parallel. The run is reproducible from the seed:
+    // every block of trials draws from its own random stream, so the number of threads does not change the results
+    public PercolationStats(int n, int trials, IntFunction<PercolationModel> engine, long seed, int threads) {
+        this(n, trials, engine, seed, threads, 0.0);
+    }
 
-                testSubject.open(coordinates[0], coordinates[1]);
+    // streaming variant of the parallel run: blocks are folded into the statistics in block order, and the run stops
+    // at the first block after which the 95% confidence interval is narrower than tolerance (0 runs all maxTrials)
+    public PercolationStats(int n, int maxTrials, IntFunction<PercolationModel> engine, long seed, int threads, double tolerance) {
 
-                arrayIndex++;
-            } while (!testSubject.percolates() && arrayIndex < totalSites);
+        if (n < 1 || maxTrials < 1) throw new IllegalArgumentException("Grid side and number of trials have to be positive");
+        if (threads < 1) throw new IllegalArgumentException("Number of threads has to be positive");
+        if (!(tolerance >= 0)) throw new IllegalArgumentException("Tolerance can not be negative");
 
-            double openSites = testSubject.numberOfOpenSites();
-            percolationResults[i] = openSites/totalSites;
+        totalSites = n*n;
+
+        try {
+            summarize(runBlocks(n, maxTrials, engine, seed, threads, tolerance, null));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e); // only checkpoints do I/O
         }
+    }
+
+    // seeded run that saves its progress to the checkpoint as it goes, starting from wherever the checkpoint
+    // stopped; the result is bit-identical to an uninterrupted run with the same parameters
+    public PercolationStats(PercolationCheckpoint checkpoint, int threads) throws IOException {
+
+        if (threads < 1) throw new IllegalArgumentException("Number of threads has to be positive");
+
+        int n = checkpoint.gridSide();
+        totalSites = n*n;
 
-        mean = StdStats.mean(percolationResults);
-        stdDev = StdStats.stddev(percolationResults);
+        RunningStats results = checkpoint.finished() ? checkpoint.results()
+                : runBlocks(n, checkpoint.maxTrials(), engine(checkpoint.engineName()), checkpoint.seed(), threads, checkpoint.tolerance(), checkpoint);
+        summarize(results);
+    }
 
-        confidenceLo = mean - ((confidenceLevel*stdDev)/Math.sqrt(trials));
-        confidenceHi = mean + ((confidenceLevel*stdDev)/Math.sqrt(trials));
+    // fold the blocks of a seeded run in block order, starting after the blocks already in the checkpoint if any,
+    // until all are in or the tolerance is reached
+    private static RunningStats runBlocks(int n, int maxTrials, IntFunction<PercolationModel> engine, long seed, int threads,
+                                          double tolerance, PercolationCheckpoint checkpoint) throws IOException {
+
+        ThreadLocal<PercolationTrials> workers = ThreadLocal.withInitial(() -> new PercolationTrials(n, engine));
+        RunningStats results = (checkpoint == null) ? new RunningStats() : checkpoint.results();
+
+        int firstBlock = (checkpoint == null) ? 0 : checkpoint.nextBlock();
+        int numberOfBlocks = PercolationTrials.numberOfBlocks(maxTrials);
+        ArrayDeque<ForkJoinTask<RunningStats>> inFlight = new ArrayDeque<>(); // submitted blocks, oldest first
+        int nextBlock = firstBlock;
+        long lastSave = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            // keep a few blocks per thread queued, but fold them strictly in block order so the stopping point
+            // does not depend on the scheduling
+            int block = firstBlock;
+            boolean reached = false;
+            while (block < numberOfBlocks && !reached) {
+                while (nextBlock < numberOfBlocks && inFlight.size() < BLOCKS_IN_FLIGHT_PER_THREAD * threads) {
+                    int submitted = nextBlock++;
+                    inFlight.add(pool.submit(() -> workers.get().runBlock(seed, submitted, maxTrials)));
+                }
+
+                results.merge(inFlight.poll().join());
+                block++;
+                reached = toleranceReached(results, tolerance);
+
+                if (checkpoint != null && System.nanoTime() - lastSave >= checkpoint.intervalMillis() * 1_000_000L) {
+                    checkpoint.save(block, results, reached || block == numberOfBlocks);
+                    lastSave = System.nanoTime();
+                }
+            }
+
+            if (checkpoint != null) checkpoint.save(block, results, true);
+        }
+        finally {
+            for (ForkJoinTask<RunningStats> task : inFlight) task.cancel(false);
+            pool.shutdownNow();
+        }
 
+        return results;
     }
 
-    private int[] getCoordinates(int siteId) {
+    // statistics of trials run elsewhere, for example by worker JVMs under a PercolationCoordinator
+    public PercolationStats(RunningStats results) {
 
-        // array holding row[0] and column[1]
-        int[] coordinates = new int[2];
+        if (results.count() < 1) throw new IllegalArgumentException("No trial was run");
 
-        if (siteId > 0 && siteId <= totalSites) {
+        summarize(results);
+    }
 
-            // Determine the row, by rounding up
-            coordinates[0] = (int) (Math.ceil(((double) siteId / gridSide)));
+    // is the 95% confidence interval of the trials so far narrower than tolerance? Streaming runs stop on it, and they
+    // all decide through here, so in-process and distributed runs stop after the same block
+    static boolean toleranceReached(RunningStats results, double tolerance) {
+        if (results.count() < MIN_STREAMING_TRIALS) return false;
 
-            // Determine the column, if remainder is 0 then it is the last column
-            int column = siteId % gridSide;
-            coordinates[1] = (column == 0) ? gridSide : column;
+        double halfWidth = (CONFIDENCE_LEVEL*results.stddev())/Math.sqrt(results.count());
+        return 2*halfWidth < tolerance;
+    }
 
-            return coordinates;
-        }
-        throw new IllegalArgumentException("Site id has to be between 1 and " + totalSites + ". Your entry is " + siteId);
+    // percolation engine by name: "twins" is the two union-find Percolation, "flags" the single union-find with
+    // per-root flags
+    static IntFunction<PercolationModel> engine(String name) {
+        if ("flags".equals(name)) return RootFlagPercolation::new;
+        if ("twins".equals(name)) return Percolation::new;
+        throw new IllegalArgumentException("Unknown engine " + name + ", expected twins or flags");
+    }
+
+    // compute the sample statistics and the 95% confidence interval from the accumulated thresholds of the trials
+    private void summarize(RunningStats results) {
+        mean = results.mean();
+        stdDev = results.stddev();
+        trialsPerformed = (int) results.count();
+
+        confidenceLo = mean - ((CONFIDENCE_LEVEL*stdDev)/Math.sqrt(trialsPerformed));
+        confidenceHi = mean + ((CONFIDENCE_LEVEL*stdDev)/Math.sqrt(trialsPerformed));
     }
 
     // sample mean of percolation threshold
@@ -109,16 +212,114 @@ public class PercolationStats {
         return confidenceHi;
     }
 
+    // number of trials actually run, lower than requested when a streaming run reached its tolerance early
+    public int trialsPerformed() {
+
+        return trialsPerformed;
+    }
+
     // test client
-    public static void main(String[] args) {
+    //   PercolationStats n trials [twins|flags] [threads [seed [tolerance]]]
+    //   PercolationStats coordinate n trials twins|flags seed tolerance port [localWorkers]
+    //   PercolationStats checkpoint file n trials twins|flags threads seed [tolerance [intervalMillis]]
+    //   PercolationStats resume file [threads]
+    public static void main(String[] args) throws Exception {
+
+        if (args.length > 0 && "coordinate".equals(args[0])) {
+            coordinate(args);
+            return;
+        }
+        if (args.length > 0 && ("checkpoint".equals(args[0]) || "resume".equals(args[0]))) {
+            checkpointed(args);
+            return;
+        }
 
         int gridSide = (args.length > 0) ? Integer.parseInt(args[0]) : 2;
         int numberOfTrials = (args.length > 1) ? Integer.parseInt(args[1]) : 100000;
 
-        PercolationStats percStats = new PercolationStats(gridSide, numberOfTrials);
+        IntFunction<PercolationModel> engine = engine((args.length > 2) ? args[2] : "twins");
+
+        // a thread count switches to the seeded fork-join runner; the seed defaults to the current time and
+        // a tolerance turns numberOfTrials into an upper bound
+        PercolationStats percStats;
+        if (args.length > 3) {
+            int threads = Integer.parseInt(args[3]);
+            long seed = (args.length > 4) ? Long.parseLong(args[4]) : System.nanoTime();
+            double tolerance = (args.length > 5) ? Double.parseDouble(args[5]) : 0.0;
+            percStats = new PercolationStats(gridSide, numberOfTrials, engine, seed, threads, tolerance);
+        }
+        else {
+            percStats = new PercolationStats(gridSide, numberOfTrials, engine);
+        }
+
+        print(percStats);
+    }
+
+    // run as the coordinator of a distributed run: workers (PercolationWorker) connect to the port, and localWorkers
+    // of them are started on this host
+    private static void coordinate(String[] args) throws Exception {
+        if (args.length < 7) throw new IllegalArgumentException("Expected: coordinate n trials twins|flags seed tolerance port [localWorkers]");
+
+        int gridSide = Integer.parseInt(args[1]);
+        int numberOfTrials = Integer.parseInt(args[2]);
+        String engineName = args[3];
+        long seed = Long.parseLong(args[4]);
+        double tolerance = Double.parseDouble(args[5]);
+        int port = Integer.parseInt(args[6]);
+        int localWorkers = (args.length > 7) ? Integer.parseInt(args[7]) : 0;
+
+        engine(engineName); // fail early on an unknown engine
+
+        RunningStats results;
+        try (PercolationCoordinator coordinator = new PercolationCoordinator(gridSide, numberOfTrials, engineName, seed, tolerance, port)) {
+            coordinator.startLocalWorkers(localWorkers);
+            results = coordinator.run();
+        }
+
+        print(new PercolationStats(results));
+    }
+
+    // run with checkpoints: "checkpoint" starts a run, or continues it if the file holds a checkpoint of the same
+    // run, and "resume" takes every parameter, the save interval included, from the file
+    private static void checkpointed(String[] args) throws IOException {
+        if (args.length < 2 || ("checkpoint".equals(args[0]) && args.length < 7)) {
+            throw new IllegalArgumentException("Expected: checkpoint file n trials twins|flags threads seed [tolerance [intervalMillis]] or resume file [threads]");
+        }
+
+        Path file = Path.of(args[1]);
+        PercolationCheckpoint checkpoint;
+        int threads;
+        if ("resume".equals(args[0])) {
+            checkpoint = PercolationCheckpoint.resume(file);
+            threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            StdOut.println("resuming after " + checkpoint.results().count() + " trials");
+        }
+        else {
+            int gridSide = Integer.parseInt(args[2]);
+            int numberOfTrials = Integer.parseInt(args[3]);
+            String engineName = args[4];
+            threads = Integer.parseInt(args[5]);
+            long seed = Long.parseLong(args[6]);
+            double tolerance = (args.length > 7) ? Double.parseDouble(args[7]) : 0.0;
+
+            if (Files.exists(file)) {
+                checkpoint = PercolationCheckpoint.resume(file);
+                checkpoint.requireSameRun(gridSide, numberOfTrials, engineName, seed, tolerance);
+                StdOut.println("resuming after " + checkpoint.results().count() + " trials");
+            }
+            else {
+                checkpoint = PercolationCheckpoint.start(file, gridSide, numberOfTrials, engineName, seed, tolerance);
+            }
+            if (args.length > 8) checkpoint.setInterval(Long.parseLong(args[8]));
+        }
+
+        print(new PercolationStats(checkpoint, threads));
+    }
 
+    private static void print(PercolationStats percStats) {
         StdOut.println("mean " + percStats.mean());
         StdOut.println("stddev " + percStats.stddev());
         StdOut.println("95% confidence interval [" + percStats.confidenceLo() + ", " + percStats.confidenceHi() + "]");
+        StdOut.println("trials " + percStats.trialsPerformed());
     }
 }
@@ -0,0 +1,112 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Newman-Ziff sweep: every trial opens sites in random order once and records the number of open sites m at which
+ * the system first percolates. Since a system that percolates keeps percolating as more sites open, the fraction of
+ * trials that percolated with at most m open sites estimates the spanning probability with exactly m open sites.
+ * Convolving it with the binomial distribution of m gives the spanning probability P(p) at any site vacancy p.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.function.IntFunction;
+
+public class PercolationSweep {
+
+    private final int totalSites;
+    private final int trials;
+    private final double[] spanning; // spanning[m] = fraction of trials that percolate with m open sites
+
+    // sweep trials independent experiments on an n-by-n grid; the seed picks the same trials as PercolationStats
+    public PercolationSweep(int n, int trials, IntFunction<PercolationModel> engine, long seed) {
+
+        if (n < 1 || trials < 1) throw new IllegalArgumentException("Grid side and number of trials have to be positive");
+
+        this.totalSites = n * n;
+        this.trials = trials;
+
+        long[] histogram = new long[totalSites + 1]; // histogram[m] = number of trials that first percolated at m
+        PercolationTrials worker = new PercolationTrials(n, engine);
+        for (int block = 0; block < PercolationTrials.numberOfBlocks(trials); block++) {
+            worker.sweepBlock(seed, block, trials, histogram);
+        }
+
+        spanning = new double[totalSites + 1];
+        long percolated = 0;
+        for (int m = 0; m <= totalSites; m++) {
+            percolated += histogram[m];
+            spanning[m] = (double) percolated / trials;
+        }
+    }
+
+    // number of trials the curve is built from
+    public int trials() {
+        return trials;
+    }
+
+    // fraction of trials that percolate with exactly m open sites
+    public double spanningProbability(int m) {
+        if (m < 0 || m > totalSites) throw new IllegalArgumentException("Number of open sites has to be between 0 and " + totalSites);
+
+        return spanning[m];
+    }
+
+    // probability that the system percolates when every site is open independently with probability p
+    public double spanningProbability(double p) {
+        if (!(p >= 0 && p <= 1)) throw new IllegalArgumentException("Probability has to be between 0 and 1");
+        if (p == 0) return spanning[0];
+        if (p == 1) return spanning[totalSites];
+
+        // binomial weights are built outwards from the mode by their ratio and normalized at the end,
+        // which avoids evaluating factorials; terms far out in the tails underflow and stop the walk
+        int mode = (int) Math.min(totalSites, Math.floor((totalSites + 1) * p));
+        double ratio = p / (1 - p);
+
+        double weightSum = 1;
+        double sum = spanning[mode];
+
+        double weight = 1;
+        for (int m = mode; m < totalSites; m++) {
+            weight *= ratio * (totalSites - m) / (m + 1);
+            if (weight < Double.MIN_NORMAL) break;
+            weightSum += weight;
+            sum += weight * spanning[m + 1];
+        }
+
+        weight = 1;
+        for (int m = mode; m > 0; m--) {
+            weight *= m / (ratio * (totalSites - m + 1));
+            if (weight < Double.MIN_NORMAL) break;
+            weightSum += weight;
+            sum += weight * spanning[m - 1];
+        }
+
+        return sum / weightSum;
+    }
+
+    // spanning probability at points + 1 evenly spaced values of p between 0 and 1
+    public double[] curve(int points) {
+        if (points < 1) throw new IllegalArgumentException("Number of points has to be positive");
+
+        double[] curve = new double[points + 1];
+        for (int i = 0; i <= points; i++) curve[i] = spanningProbability((double) i / points);
+
+        return curve;
+    }
+
+    // test client: print P(p) for an n-by-n grid
+    public static void main(String[] args) {
+
+        int gridSide = (args.length > 0) ? Integer.parseInt(args[0]) : 64;
+        int numberOfTrials = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+        int points = (args.length > 2) ? Integer.parseInt(args[2]) : 100;
+        long seed = (args.length > 3) ? Long.parseLong(args[3]) : System.nanoTime();
+
+        PercolationSweep sweep = new PercolationSweep(gridSide, numberOfTrials, RootFlagPercolation::new, seed);
+
+        double[] curve = sweep.curve(points);
+        for (int i = 0; i <= points; i++) {
+            StdOut.printf("%.4f %.6f%n", (double) i / points, curve[i]);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Runs percolation trials for one worker. Trials are grouped in fixed-size blocks and every block draws from its own
+ * SplittableRandom stream derived from the run seed and the block number, so the outcome of a seeded run does not
+ * depend on how the blocks are spread across threads.
+ *
+ * A worker allocates its percolation engine once, on the first trial, and resets it before every following trial, so
+ * after warm-up a trial allocates nothing.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+public class PercolationTrials {
+
+    public static final int TRIALS_PER_BLOCK = 64;
+
+    private final int gridSide;
+    private final int totalSites;
+    private final IntFunction<PercolationModel> engine;
+    private final int[] sitesToOpen; // per-worker scratch holding the sequence of sites to open
+
+    private PercolationModel testSubject; // engine reused by every trial of this worker
+    private int enginesAllocated; // number of engines this worker has built, stays at 1 after the first trial
+
+    public PercolationTrials(int n, IntFunction<PercolationModel> engine) {
+        if (n < 1) throw new IllegalArgumentException("Grid side has to be positive");
+
+        this.gridSide = n;
+        this.totalSites = n * n;
+        this.engine = engine;
+
+        sitesToOpen = new int[totalSites];
+    }
+
+    // number of percolation engines allocated by this worker so far
+    public int enginesAllocated() {
+        return enginesAllocated;
+    }
+
+    // number of blocks needed to run the given number of trials
+    public static int numberOfBlocks(int trials) {
+        return (trials + TRIALS_PER_BLOCK - 1) / TRIALS_PER_BLOCK;
+    }
+
+    // seed of the random stream of a block: SplitMix64 finalizer over the run seed and the block number
+    public static long blockSeed(long seed, int block) {
+        long z = seed + (block + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // random stream of a block, with the scratch array put back in order: the shuffles of a block must not depend on
+    // whichever block this worker ran before
+    private SplittableRandom startBlock(long seed, int block) {
+        for (int i = 0; i < totalSites; i++) sitesToOpen[i] = i + 1;
+
+        return new SplittableRandom(blockSeed(seed, block));
+    }
+
+    // run the trials of one block, out of a run of the given number of trials, and return their statistics
+    public RunningStats runBlock(long seed, int block, int trials) {
+        SplittableRandom random = startBlock(seed, block);
+
+        RunningStats results = new RunningStats();
+        int first = block * TRIALS_PER_BLOCK;
+        int last = Math.min(first + TRIALS_PER_BLOCK, trials);
+        for (int i = first; i < last; i++) results.add(runTrial(random));
+
+        return results;
+    }
+
+    // run the trials of one block and count, for each trial, the number of open sites at which it percolated
+    public void sweepBlock(long seed, int block, int trials, long[] histogram) {
+        SplittableRandom random = startBlock(seed, block);
+
+        int first = block * TRIALS_PER_BLOCK;
+        int last = Math.min(first + TRIALS_PER_BLOCK, trials);
+        for (int i = first; i < last; i++) histogram[openUntilPercolates(random)]++;
+    }
+
+    // open sites in random order until the system percolates and return the fraction of open sites
+    public double runTrial(SplittableRandom random) {
+        return (double) openUntilPercolates(random) / totalSites;
+    }
+
+    // open sites in random order until the system percolates and return the number of open sites
+    private int openUntilPercolates(SplittableRandom random) {
+        if (testSubject == null) {
+            testSubject = engine.apply(gridSide);
+            enginesAllocated++;
+        }
+        else {
+            testSubject.reset();
+        }
+
+        // Fisher-Yates shuffle of the sequence of sites to open
+        for (int i = totalSites - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = sitesToOpen[i];
+            sitesToOpen[i] = sitesToOpen[j];
+            sitesToOpen[j] = swap;
+        }
+
+        testSubject.openUntilPercolates(sitesToOpen, 0, totalSites);
+
+        return testSubject.numberOfOpenSites();
+    }
+
+    // test client: after a warm-up block, measure the bytes this thread allocates while running more blocks
+    public static void main(String[] args) {
+
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 500;
+        int blocks = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        int trials = (blocks + 1) * TRIALS_PER_BLOCK;
+        PercolationTrials worker = new PercolationTrials(n, RootFlagPercolation::new);
+
+        worker.runBlock(1, 0, trials); // warm-up
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int block = 1; block <= blocks; block++) worker.runBlock(1, block, trials);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        StdOut.println("Engines allocated: " + worker.enginesAllocated());
+        StdOut.println("Bytes allocated after warm-up: " + allocated + " over " + (blocks * TRIALS_PER_BLOCK) + " trials, "
+                + ((double) allocated / (blocks * TRIALS_PER_BLOCK)) + " per trial");
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Worker JVM of a distributed PercolationStats run. Each thread connects to the coordinator, reads the job (grid
+ * side, engine, seed and number of trials), then runs the blocks it is handed one at a time and sends back their
+ * statistics, until the coordinator says the run is over. A thread whose connection fails, or that can not connect
+ * yet, tries again after a delay that doubles up to MAX_RETRY_DELAY_MILLIS, and gives up once it has gone
+ * GIVE_UP_MILLIS without a working connection.
+ *
+ *   java PercolationWorker host port [threads]
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.net.Socket;
+
+public class PercolationWorker {
+
+    static final int MAGIC = 0x50455243; // "PERC"
+    static final int PROTOCOL_VERSION = 1;
+    static final int NO_MORE_BLOCKS = -1;
+
+    private static final long MIN_RETRY_DELAY_MILLIS = 100;
+    private static final long MAX_RETRY_DELAY_MILLIS = 10 * 1000;
+    private static final long GIVE_UP_MILLIS = 5 * 60 * 1000;
+
+    // serve one connection to the coordinator until it runs out of blocks and return true, or return false if the
+    // connection is lost after the job was read; throws if it can not connect or read the job
+    static boolean serve(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            if (in.readInt() != MAGIC || in.readInt() != PROTOCOL_VERSION) throw new IOException("Not a percolation coordinator at " + host + ":" + port);
+            int gridSide = in.readInt();
+            String engineName = in.readUTF();
+            long seed = in.readLong();
+            int trials = in.readInt();
+
+            PercolationTrials worker = new PercolationTrials(gridSide, PercolationStats.engine(engineName));
+
+            try {
+                for (int block = in.readInt(); block != NO_MORE_BLOCKS; block = in.readInt()) {
+                    RunningStats results = worker.runBlock(seed, block, trials);
+                    out.writeInt(block);
+                    results.writeTo(out);
+                    out.flush();
+                }
+                return true;
+            }
+            catch (IOException e) {
+                StdOut.println("Lost the connection to " + host + ":" + port + " (" + e + ")");
+                return false;
+            }
+        }
+    }
+
+    // serve connections to the coordinator until the run is over, reconnecting with backoff after a failure
+    static void serveWithRetry(String host, int port) throws IOException, InterruptedException {
+        long delay = MIN_RETRY_DELAY_MILLIS;
+        long failingSince = System.nanoTime();
+        while (true) {
+            try {
+                if (serve(host, port)) return;
+                // the connection worked for a while: start over with a short delay
+                delay = MIN_RETRY_DELAY_MILLIS;
+                failingSince = System.nanoTime();
+            }
+            catch (IOException e) {
+                if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - failingSince) >= GIVE_UP_MILLIS) throw e;
+                StdOut.println("Connecting to " + host + ":" + port + " failed (" + e + "), retrying in " + delay + " ms");
+            }
+            Thread.sleep(delay);
+            delay = Math.min(2 * delay, MAX_RETRY_DELAY_MILLIS);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+
+        String host = (args.length > 0) ? args[0] : "localhost";
+        int port = Integer.parseInt(args[1]);
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Thread[] connections = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            connections[i] = new Thread(() -> {
+                try {
+                    serveWithRetry(host, port);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "percolation-worker-" + i);
+            connections[i].start();
+        }
+        for (Thread connection : connections) connection.join();
+
+        StdOut.println("Worker done");
+    }
+}
@@ -0,0 +1,268 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Percolation engine that can close sites again. Union-find can not split a component, but it can be rolled back:
+ * this engine links by size without path compression, so every union is a single pointer write that it records on a
+ * history stack, together with the flags the surviving root had before.
+ *
+ * undo() closes the most recently opened site by popping its unions, in O(log n). close(row, col) closes any open
+ * site: it undoes the opens made after it, then redoes them, so it costs as many opens as were made since the site
+ * was opened, instead of a rebuild of the whole grid. Like RootFlagPercolation, roots carry top and bottom flags and
+ * there are no virtual sites.
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+public class RollbackPercolation implements PercolationModel {
+
+    // Status bits. OPEN is kept for every site, TOP and BOTTOM are only meaningful on union-find roots
+    private static final byte OPEN = 1;
+    private static final byte TOP = 2;
+    private static final byte BOTTOM = 4;
+
+    private final int gridSide;
+    private final byte[] status; // status bits of every site, indexed by 0-based site id
+    private final int[] parent; // parent[i] = parent of i, or -size when i is a root
+
+    // one entry per union, newest last: the root that was linked below another one, its size and the old flags of
+    // the surviving root. A component of k sites took k - 1 unions, so n * n entries are always enough
+    private final int[] linkedRoot;
+    private final int[] linkedSize;
+    private final byte[] survivorStatus;
+    private int unions;
+
+    // one entry per open site, in opening order: the site, the history size and percolates() before it opened
+    private final int[] openedSite;
+    private final int[] unionsBefore;
+    private final boolean[] percolatedBefore;
+    private final int[] openOrder; // openOrder[site] = index of the open site in the entries above
+    private final int[] redo; // scratch for close(), holding the sites to open again
+    private int numberOfOpenSites;
+
+    private boolean percolates;
+
+    // Create n-by-n grid, with all sites blocked
+    public RollbackPercolation(int n) {
+        if (n < 1) throw new IllegalArgumentException("The number has to be positive");
+
+        gridSide = n;
+        int gridArea = n * n;
+        status = new byte[gridArea];
+        parent = new int[gridArea];
+        linkedRoot = new int[gridArea];
+        linkedSize = new int[gridArea];
+        survivorStatus = new byte[gridArea];
+        openedSite = new int[gridArea];
+        unionsBefore = new int[gridArea];
+        percolatedBefore = new boolean[gridArea];
+        openOrder = new int[gridArea];
+        redo = new int[gridArea];
+        reset();
+    }
+
+    // block every site again, reusing the arrays
+    public void reset() {
+        Arrays.fill(status, (byte) 0);
+        Arrays.fill(parent, -1);
+        unions = 0;
+        numberOfOpenSites = 0;
+        percolates = false;
+    }
+
+    private void validate(int row, int col) {
+        if (row < 1 || row > gridSide) throw new IllegalArgumentException("Row number has to be between 1 and " + gridSide + " Your entered: " + row);
+        if (col < 1 || col > gridSide) throw new IllegalArgumentException("Column number has to be between 1 and " + gridSide + " Your entered: " + col);
+    }
+
+    // determine 0-based site id, based on the n-by-n grid coordinates
+    private int getSiteId(int row, int col) {
+        return (row - 1) * gridSide + (col - 1);
+    }
+
+    // root of the component of site; no path compression, so that unions stay undoable
+    private int find(int site) {
+        while (parent[site] >= 0) site = parent[site];
+        return site;
+    }
+
+    // link the components of site and an open neighbour, recording the union
+    private void connect(int site, int neighbour) {
+        int root = find(site);
+        int other = find(neighbour);
+        if (root == other) return;
+
+        // the larger component survives; sizes are stored negated
+        if (parent[root] > parent[other]) {
+            int swap = root;
+            root = other;
+            other = swap;
+        }
+
+        linkedRoot[unions] = other;
+        linkedSize[unions] = -parent[other];
+        survivorStatus[unions] = status[root];
+        unions++;
+
+        parent[root] += parent[other];
+        parent[other] = root;
+        status[root] |= status[other] & (TOP | BOTTOM);
+
+        if ((status[root] & (TOP | BOTTOM)) == (TOP | BOTTOM)) percolates = true;
+    }
+
+    // open site (row, col) if it is not open already
+    public void open(int row, int col) {
+        validate(row, col);
+
+        openSite(getSiteId(row, col));
+    }
+
+    private void openSite(int site) {
+        if (status[site] != 0) return;
+
+        openedSite[numberOfOpenSites] = site;
+        unionsBefore[numberOfOpenSites] = unions;
+        percolatedBefore[numberOfOpenSites] = percolates;
+        openOrder[site] = numberOfOpenSites;
+        numberOfOpenSites++;
+
+        int row = site / gridSide;
+        int col = site - row * gridSide;
+
+        status[site] = OPEN;
+        if (row == 0) status[site] |= TOP;
+        if (row == gridSide - 1) status[site] |= BOTTOM;
+        if ((status[site] & (TOP | BOTTOM)) == (TOP | BOTTOM)) percolates = true;
+
+        if (row > 0 && status[site - gridSide] != 0) connect(site, site - gridSide);
+        if (row < gridSide - 1 && status[site + gridSide] != 0) connect(site, site + gridSide);
+        if (col > 0 && status[site - 1] != 0) connect(site, site - 1);
+        if (col < gridSide - 1 && status[site + 1] != 0) connect(site, site + 1);
+    }
+
+    // close the most recently opened site; LIFO, O(log n)
+    public void undo() {
+        if (numberOfOpenSites == 0) throw new IllegalStateException("No site is open");
+
+        numberOfOpenSites--;
+        while (unions > unionsBefore[numberOfOpenSites]) {
+            unions--;
+            int other = linkedRoot[unions];
+            int root = parent[other];
+            parent[root] += linkedSize[unions];
+            parent[other] = -linkedSize[unions];
+            status[root] = survivorStatus[unions];
+        }
+
+        status[openedSite[numberOfOpenSites]] = 0;
+        percolates = percolatedBefore[numberOfOpenSites];
+    }
+
+    // close site (row, col) if it is open, by undoing the opens made after it and opening those sites again
+    public void close(int row, int col) {
+        validate(row, col);
+
+        int site = getSiteId(row, col);
+        if (status[site] == 0) return;
+
+        int later = numberOfOpenSites - openOrder[site] - 1;
+        System.arraycopy(openedSite, openOrder[site] + 1, redo, 0, later);
+
+        for (int i = 0; i <= later; i++) undo();
+        for (int i = 0; i < later; i++) openSite(redo[i]);
+    }
+
+    // open the sites siteIds[from] to siteIds[to - 1]
+    public void openAll(int[] siteIds, int from, int to) {
+        Objects.checkFromToIndex(from, to, siteIds.length);
+
+        for (int i = from; i < to; i++) openSiteId(siteIds[i]);
+    }
+
+    // open sites from siteIds until the system percolates and return the index of the site that made it percolate
+    public int openUntilPercolates(int[] siteIds, int from, int to) {
+        Objects.checkFromToIndex(from, to, siteIds.length);
+        if (percolates) throw new IllegalStateException("The system percolates already");
+
+        for (int i = from; i < to; i++) {
+            openSiteId(siteIds[i]);
+            if (percolates) return i;
+        }
+        return -1;
+    }
+
+    // open the site with the given 1-based row-major id
+    private void openSiteId(int siteId) {
+        if (siteId < 1 || siteId > status.length) throw new IllegalArgumentException("Site id has to be between 1 and " + status.length + ". Your entry is " + siteId);
+
+        openSite(siteId - 1);
+    }
+
+    // is site (row, col) open?
+    public boolean isOpen(int row, int col) {
+        validate(row, col);
+
+        return status[getSiteId(row, col)] != 0;
+    }
+
+    // is site (row, col) full?
+    public boolean isFull(int row, int col) {
+        return isOpen(row, col) && (status[find(getSiteId(row, col))] & TOP) != 0;
+    }
+
+    // bitset of the full sites, see PercolationModel
+    public long[] fullMask() {
+        return PercolationModel.fullMask(this, gridSide);
+    }
+
+    // number of open sites
+    public int numberOfOpenSites() {
+        return numberOfOpenSites;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // test client: random opens and closes, checked against a grid rebuilt from scratch after every step
+    public static void main(String[] args) {
+
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+        int steps = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+
+        RollbackPercolation dynamic = new RollbackPercolation(n);
+        boolean[] open = new boolean[n * n];
+
+        for (int step = 0; step < steps; step++) {
+            int site = StdRandom.uniform(n * n);
+            int row = site / n + 1;
+            int col = site % n + 1;
+
+            // open two sites for every one closed, so the grid wanders around the threshold
+            if (StdRandom.uniform(3) > 0) {
+                dynamic.open(row, col);
+                open[site] = true;
+            }
+            else {
+                dynamic.close(row, col);
+                open[site] = false;
+            }
+
+            PercolationModel rebuilt = new RootFlagPercolation(n);
+            for (int i = 0; i < open.length; i++) if (open[i]) rebuilt.open(i / n + 1, i % n + 1);
+
+            if (rebuilt.percolates() != dynamic.percolates()) throw new IllegalStateException("percolates() differs at step " + step);
+            if (rebuilt.numberOfOpenSites() != dynamic.numberOfOpenSites()) throw new IllegalStateException("numberOfOpenSites() differs at step " + step);
+            for (int i = 0; i < open.length; i++) {
+                if (rebuilt.isFull(i / n + 1, i % n + 1) != dynamic.isFull(i / n + 1, i % n + 1)) throw new IllegalStateException("isFull() differs at step " + step);
+            }
+        }
+
+        StdOut.println("Opens and closes on a " + n + "-by-" + n + " grid agree with a rebuild over " + steps + " steps");
+    }
+}
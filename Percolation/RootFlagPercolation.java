@@ -0,0 +1,252 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Percolation engine backed by a single union-find. Instead of a virtual top and bottom site (and the twin structure
+ * needed to keep the virtual bottom from backwashing into isFull), every root carries two flags telling whether its
+ * component touches the top row and the bottom row.
+ *
+ * Since there are no virtual sites, the union-find components are exactly the clusters of open sites, and the engine
+ * also keeps their size statistics (see clusters()).
+ */
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+public class RootFlagPercolation implements PercolationModel {
+
+    // Status bits. OPEN is kept for every site, TOP and BOTTOM are only meaningful on union-find roots
+    private static final byte OPEN = 1;
+    private static final byte TOP = 2;
+    private static final byte BOTTOM = 4;
+
+    private final int gridSide; // holds the length of the grid axis
+    private final byte[] status; // status bits of every site, indexed by 0-based site id
+    private final GridUnionFind sites; // WQUF object holding open, connected sites
+    private final ClusterStats clusters; // cluster-size statistics, updated on every open
+
+    private int numberOfOpenSites; // holds the number of open sites
+    private boolean percolates; // set once a component touches both the top and the bottom row
+
+    // Create n-by-n grid, with all sites blocked
+    public RootFlagPercolation(int n) {
+        if (n < 1) throw new IllegalArgumentException("The number has to be positive");
+
+        gridSide = n;
+        status = new byte[n * n];
+        sites = new GridUnionFind(n * n, n, true);
+        clusters = new ClusterStats(n * n);
+    }
+
+    // block every site again, reusing the status and union-find arrays
+    public void reset() {
+        Arrays.fill(status, (byte) 0);
+        sites.reset();
+        clusters.reset();
+        numberOfOpenSites = 0;
+        percolates = false;
+    }
+
+    private void validate(int row, int col) {
+        if (row < 1 || row > gridSide) throw new IllegalArgumentException("Row number has to be between 1 and " + gridSide + " Your entered: " + row);
+        if (col < 1 || col > gridSide) throw new IllegalArgumentException("Column number has to be between 1 and " + gridSide + " Your entered: " + col);
+    }
+
+    // determine 0-based site id, based on the n-by-n grid coordinates
+    private int getSiteId(int row, int col) {
+        return (row - 1) * gridSide + (col - 1);
+    }
+
+    // union thisSite with an open neighbour and return the flags the neighbour's component brings along
+    private byte connect(int thisSite, int neighbour) {
+        int root = sites.find(thisSite);
+        int other = sites.find(neighbour);
+        if (root == other) return 0; // reached through an earlier neighbour, its flags are already collected
+
+        clusters.merged(sites.size(root), sites.size(other));
+        byte flags = status[other];
+        sites.union(root, other);
+        return flags;
+    }
+
+    // open site (row, col) if it is not open already
+    public void open(int row, int col) {
+        validate(row, col);
+
+        openSite(getSiteId(row, col), row, col);
+    }
+
+    // open the sites siteIds[from] to siteIds[to - 1]
+    public void openAll(int[] siteIds, int from, int to) {
+        Objects.checkFromToIndex(from, to, siteIds.length);
+
+        for (int i = from; i < to; i++) openSiteId(siteIds[i]);
+    }
+
+    // open sites from siteIds until the system percolates and return the index of the site that made it percolate
+    public int openUntilPercolates(int[] siteIds, int from, int to) {
+        Objects.checkFromToIndex(from, to, siteIds.length);
+        if (percolates) throw new IllegalStateException("The system percolates already");
+
+        for (int i = from; i < to; i++) {
+            openSiteId(siteIds[i]);
+            if (percolates) return i;
+        }
+        return -1;
+    }
+
+    // open the site with the given 1-based row-major id
+    private void openSiteId(int siteId) {
+        if (siteId < 1 || siteId > status.length) throw new IllegalArgumentException("Site id has to be between 1 and " + status.length + ". Your entry is " + siteId);
+
+        int thisSite = siteId - 1;
+        int row = thisSite / gridSide + 1;
+        openSite(thisSite, row, thisSite - (row - 1) * gridSide + 1);
+    }
+
+    // open the site with 0-based id thisSite, at (row, col), if it is not open already
+    private void openSite(int thisSite, int row, int col) {
+        if (status[thisSite] != 0) return;
+
+        clusters.opened();
+
+        byte flags = OPEN;
+        if (row == 1) flags |= TOP;
+        if (row == gridSide) flags |= BOTTOM;
+
+        if (row > 1 && status[thisSite - gridSide] != 0) flags |= connect(thisSite, thisSite - gridSide);
+        if (row < gridSide && status[thisSite + gridSide] != 0) flags |= connect(thisSite, thisSite + gridSide);
+        if (col > 1 && status[thisSite - 1] != 0) flags |= connect(thisSite, thisSite - 1);
+        if (col < gridSide && status[thisSite + 1] != 0) flags |= connect(thisSite, thisSite + 1);
+
+        // the merged component inherits the flags of every component it swallowed
+        status[thisSite] = OPEN;
+        status[sites.find(thisSite)] |= flags;
+
+        if ((flags & (TOP | BOTTOM)) == (TOP | BOTTOM)) percolates = true;
+
+        numberOfOpenSites++;
+    }
+
+    // is site (row, col) open?
+    public boolean isOpen(int row, int col) {
+        validate(row, col);
+
+        return status[getSiteId(row, col)] != 0;
+    }
+
+    // is site (row, col) full?
+    public boolean isFull(int row, int col) {
+        return isOpen(row, col) && (status[sites.find(getSiteId(row, col))] & TOP) != 0;
+    }
+
+    // bitset of the full sites, see PercolationModel; an open site takes its fullness from an open left or upper
+    // neighbour, already resolved in row-major order, so only sites with neither look up the TOP flag of their root
+    public long[] fullMask() {
+        long[] mask = new long[(status.length + 63) >>> 6];
+
+        for (int site = 0; site < status.length; site++) {
+            if (status[site] == 0) continue;
+
+            boolean full;
+            if (site % gridSide > 0 && status[site - 1] != 0) full = (mask[(site - 1) >>> 6] & (1L << (site - 1))) != 0;
+            else if (site >= gridSide && status[site - gridSide] != 0) full = (mask[(site - gridSide) >>> 6] & (1L << (site - gridSide))) != 0;
+            else full = (status[sites.find(site)] & TOP) != 0;
+
+            if (full) mask[site >>> 6] |= 1L << site;
+        }
+        return mask;
+    }
+
+    // number of open sites
+    public int numberOfOpenSites() {
+        return numberOfOpenSites;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // live cluster-size statistics of the open sites
+    public ClusterStats clusters() {
+        return clusters;
+    }
+
+    private static void compareFullSites(PercolationModel a, PercolationModel b, int n) {
+        for (int row = 1; row <= n; row++) {
+            for (int col = 1; col <= n; col++) {
+                if (a.isFull(row, col) != b.isFull(row, col)) throw new IllegalStateException("isFull(" + row + "," + col + ") differs");
+            }
+        }
+
+        // the bulk masks have to agree with the per-site queries too
+        long[] expected = PercolationModel.fullMask(a, n);
+        if (!Arrays.equals(a.fullMask(), expected)) throw new IllegalStateException("fullMask() differs from isFull");
+        if (!Arrays.equals(b.fullMask(), expected)) throw new IllegalStateException("fullMask() of the second engine differs");
+    }
+
+    // recount the clusters with a flood fill and compare them with the live statistics
+    private static void checkClusters(RootFlagPercolation p, int n) {
+        boolean[] seen = new boolean[n * n];
+        int[] stack = new int[n * n];
+        int count = 0, largest = 0;
+
+        for (int start = 0; start < n * n; start++) {
+            if (seen[start] || !p.isOpen(start / n + 1, start % n + 1)) continue;
+
+            int size = 0, top = 0;
+            stack[top++] = start;
+            seen[start] = true;
+            while (top > 0) {
+                int site = stack[--top];
+                size++;
+                int row = site / n, col = site % n;
+                int[] neighbours = { row > 0 ? site - n : -1, row < n - 1 ? site + n : -1, col > 0 ? site - 1 : -1, col < n - 1 ? site + 1 : -1 };
+                for (int next : neighbours) {
+                    if (next >= 0 && !seen[next] && p.isOpen(next / n + 1, next % n + 1)) {
+                        seen[next] = true;
+                        stack[top++] = next;
+                    }
+                }
+            }
+            count++;
+            largest = Math.max(largest, size);
+        }
+
+        if (count != p.clusters().numberOfClusters()) throw new IllegalStateException("numberOfClusters() is " + p.clusters().numberOfClusters() + ", flood fill finds " + count);
+        if (largest != p.clusters().largestCluster()) throw new IllegalStateException("largestCluster() is " + p.clusters().largestCluster() + ", flood fill finds " + largest);
+    }
+
+    // test client: open the same random sequence on both engines and check that they agree on every query
+    public static void main(String[] args) {
+
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+
+        PercolationModel flags = new RootFlagPercolation(n);
+        PercolationModel twins = new Percolation(n);
+
+        int[] sitesToOpen = new int[n * n];
+        for (int i = 0; i < sitesToOpen.length; i++) sitesToOpen[i] = i;
+        StdRandom.shuffle(sitesToOpen);
+
+        for (int i = 0; i < sitesToOpen.length; i++) {
+            int row = sitesToOpen[i] / n + 1;
+            int col = sitesToOpen[i] % n + 1;
+            flags.open(row, col);
+            twins.open(row, col);
+
+            if (flags.percolates() != twins.percolates()) throw new IllegalStateException("percolates() differs after opening " + row + "," + col);
+
+            // compare the full sites around the threshold, where backwash would show up
+            if (i == sitesToOpen.length * 6 / 10) {
+                compareFullSites(flags, twins, n);
+                checkClusters((RootFlagPercolation) flags, n);
+            }
+        }
+
+        StdOut.println("Both engines agree on a " + n + "-by-" + n + " grid");
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * Online mean and variance of a stream of values (Welford's algorithm), in constant memory. Two accumulators can be
+ * merged (Chan et al.), which is how per-block results are folded into the statistics of a whole run. The state
+ * travels as raw doubles (writeTo / readFrom), so an accumulator shipped between JVMs folds to the same bits.
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class RunningStats {
+
+    private long count; // number of values seen
+    private double mean; // mean of the values seen
+    private double m2; // sum of squared differences from the mean
+
+    // add one value
+    public void add(double x) {
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+    }
+
+    // fold the values seen by another accumulator into this one
+    public void merge(RunningStats other) {
+        if (other.count == 0) return;
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            return;
+        }
+
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        count = total;
+    }
+
+    // number of values seen
+    public long count() {
+        return count;
+    }
+
+    // sample mean, NaN when no value was seen
+    public double mean() {
+        return (count == 0) ? Double.NaN : mean;
+    }
+
+    // sample standard deviation, NaN with fewer than two values
+    public double stddev() {
+        return (count < 2) ? Double.NaN : Math.sqrt(m2 / (count - 1));
+    }
+
+    // write the exact state of the accumulator
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(mean);
+        out.writeDouble(m2);
+    }
+
+    // read an accumulator written by writeTo
+    public static RunningStats readFrom(DataInput in) throws IOException {
+        RunningStats stats = new RunningStats();
+        stats.count = in.readLong();
+        stats.mean = in.readDouble();
+        stats.m2 = in.readDouble();
+        if (stats.count < 0) throw new IOException("Corrupt statistics: negative count " + stats.count);
+        return stats;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * n-by-n square lattice, the grid of the assignment. Site (r, c), 0-based, has id r * n + c.
+ * Slots: 0 right, 1 down (forward); 2 left, 3 up.
+ */
+
+public final class SquareLattice implements Lattice {
+
+    private final int side;
+
+    public SquareLattice(int n) {
+        if (n < 1) throw new IllegalArgumentException("The number has to be positive");
+        if ((long) n * n > Integer.MAX_VALUE) throw new IllegalArgumentException("A grid of side " + n + " has too many sites");
+        side = n;
+    }
+
+    public int sites() { return side * side; }
+    public int degree() { return 4; }
+    public int bondsPerSite() { return 2; }
+
+    public int neighbour(int site, int slot) {
+        int r = site / side;
+        int c = site - r * side;
+        switch (slot) {
+            case 0: return (c + 1 < side) ? site + 1 : -1;
+            case 1: return (r + 1 < side) ? site + side : -1;
+            case 2: return (c > 0) ? site - 1 : -1;
+            case 3: return (r > 0) ? site - side : -1;
+            default: throw new IllegalArgumentException("Slot has to be between 0 and 3");
+        }
+    }
+
+    public void neighbours(int site, int[] into) {
+        int r = site / side;
+        int c = site - r * side;
+        into[0] = (c + 1 < side) ? site + 1 : -1;
+        into[1] = (r + 1 < side) ? site + side : -1;
+        into[2] = (c > 0) ? site - 1 : -1;
+        into[3] = (r > 0) ? site - side : -1;
+    }
+
+    public boolean isTop(int site) { return site < side; }
+    public boolean isBottom(int site) { return site >= side * (side - 1); }
+}
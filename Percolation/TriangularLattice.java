@@ -0,0 +1,49 @@
+/**
+ * Created by Philip Ivanov (https://github.com/personalaccount)
+ *
+ * n-by-n triangular lattice, drawn as the square lattice plus one diagonal per cell. Site (r, c), 0-based, has id
+ * r * n + c. Slots: 0 right, 1 down, 2 down-right (forward); 3 left, 4 up, 5 up-left.
+ */
+
+public final class TriangularLattice implements Lattice {
+
+    private final int side;
+
+    public TriangularLattice(int n) {
+        if (n < 1) throw new IllegalArgumentException("The number has to be positive");
+        if ((long) n * n > Integer.MAX_VALUE) throw new IllegalArgumentException("A grid of side " + n + " has too many sites");
+        side = n;
+    }
+
+    public int sites() { return side * side; }
+    public int degree() { return 6; }
+    public int bondsPerSite() { return 3; }
+
+    public int neighbour(int site, int slot) {
+        int r = site / side;
+        int c = site - r * side;
+        switch (slot) {
+            case 0: return (c + 1 < side) ? site + 1 : -1;
+            case 1: return (r + 1 < side) ? site + side : -1;
+            case 2: return (r + 1 < side && c + 1 < side) ? site + side + 1 : -1;
+            case 3: return (c > 0) ? site - 1 : -1;
+            case 4: return (r > 0) ? site - side : -1;
+            case 5: return (r > 0 && c > 0) ? site - side - 1 : -1;
+            default: throw new IllegalArgumentException("Slot has to be between 0 and 5");
+        }
+    }
+
+    public void neighbours(int site, int[] into) {
+        int r = site / side;
+        int c = site - r * side;
+        into[0] = (c + 1 < side) ? site + 1 : -1;
+        into[1] = (r + 1 < side) ? site + side : -1;
+        into[2] = (r + 1 < side && c + 1 < side) ? site + side + 1 : -1;
+        into[3] = (c > 0) ? site - 1 : -1;
+        into[4] = (r > 0) ? site - side : -1;
+        into[5] = (r > 0 && c > 0) ? site - side - 1 : -1;
+    }
+
+    public boolean isTop(int site) { return site < side; }
+    public boolean isBottom(int site) { return site >= side * (side - 1); }
+}